@@ -1,32 +1,215 @@
+import java.io.IOException;
 import java.util.Arrays;
 
+import batch.BatchRunner;
+import distributed.*;
 import optimization.*;
+import reporting.*;
+import utils.RandomStreams;
 import visualization.*;
 
-/** Utility class. Solves an optimization problem with an algorithm and shows the results. */
+/** 
+ * Utility class. Solves an optimization problem with an algorithm and shows the results.
+ * 
+ * Usage: java Solver [options] problem [problem params] -- algorithm [algorithm params]
+ *        java Solver -batch spec workers output
+ * Options:
+ *   -report seconds             Interval between progress reports (0 disables them; default 1)
+ *   -csv file                   Also writes the progress reports in a CSV file
+ *   -coordinator port workers   Coordinates a distributed island model (no algorithm is needed)
+ *   -worker host:port           Runs an island (GeneticAlgorithm params) of a distributed island model
+ *   -migration interval count   Migrations of the worker (default: 10 generations, 2 individuals)
+ *   -checkpoint file seconds    Saves the state of the search in the file every few seconds
+ *   -resume file                Resumes the search saved in a checkpoint file (same problem and algorithm)
+ *   -cache entries policy       Caches the scores of up to entries configurations (policy: FIFO or LRU)
+ *   -batch spec workers output  Carries out the runs of a specification file, several at once (see batch.BatchRunner)
+ *   -time seconds               Stops the search after the given wall-clock time
+ *   -evaluations n              Stops the search after n evaluations (full or delta ones)
+ *   -target score               Stops the search when a configuration with this score or lower is found
+ *   -bound                      Computes a Held-Karp lower bound in the background and shows the gap to it
+ *   -gap percent                Stops the search when the best score is within this gap of the lower bound
+ *   -init method                Builds the initial configurations with a method: RANDOM (default), NEAREST_NEIGHBOR,
+ *                               GREEDY_EDGE, HILBERT or CHRISTOFIDES
+ *   -seed n                     Seed of the random numbers of the algorithm (runs with the same seed are repeatable)
+ */
 public class Solver {
 	
 	public static void main(String[] args){
+		// Options (before the problem name)
+		double reportInterval = 1;
+		String csvFile = null;
+		String[] coordinator = null;
+		String worker = null;
+		int migrationInterval = 10, migrants = 2;
+		String checkpointFile = null, resumeFile = null;
+		double checkpointInterval = 0;
+		int cacheEntries = 0;
+		EvictionPolicy cachePolicy = EvictionPolicy.LRU;
+		String[] batch = null;
+		double timeLimit = 0, targetScore = Double.NEGATIVE_INFINITY;
+		long maxEvaluations = 0;
+		boolean lowerBound = false;
+		double targetGap = -1;
+		Initializer initializer = Initializer.RANDOM;
+		int first = 0;
+		try{
+			while (first<args.length && args[first].startsWith("-") && !args[first].equals("--")){
+				switch (args[first]){
+					case "-report":
+						reportInterval = Double.parseDouble(args[++first]);
+						break;
+					case "-csv":
+						csvFile = args[++first];
+						break;
+					case "-coordinator":
+						coordinator = new String[] { args[++first], args[++first] };
+						break;
+					case "-worker":
+						worker = args[++first];
+						break;
+					case "-migration":
+						migrationInterval = Integer.parseInt(args[++first]);
+						migrants = Integer.parseInt(args[++first]);
+						break;
+					case "-checkpoint":
+						checkpointFile = args[++first];
+						checkpointInterval = Double.parseDouble(args[++first]);
+						break;
+					case "-resume":
+						resumeFile = args[++first];
+						break;
+					case "-cache":
+						cacheEntries = Integer.parseInt(args[++first]);
+						cachePolicy = EvictionPolicy.valueOf(args[++first].toUpperCase());
+						break;
+					case "-batch":
+						batch = new String[] { args[++first], args[++first], args[++first] };
+						break;
+					case "-time":
+						timeLimit = Double.parseDouble(args[++first]);
+						break;
+					case "-evaluations":
+						maxEvaluations = Long.parseLong(args[++first]);
+						break;
+					case "-target":
+						targetScore = Double.parseDouble(args[++first]);
+						break;
+					case "-bound":
+						lowerBound = true;
+						break;
+					case "-gap":
+						targetGap = Double.parseDouble(args[++first])/100;
+						break;
+					case "-init":
+						initializer = Initializer.valueOf(args[++first].toUpperCase());
+						break;
+					case "-seed":
+						RandomStreams.setSeed(Long.parseLong(args[++first]));
+						break;
+					default:
+						System.out.println("Unknown option "+args[first]+".");
+						System.exit(-1);
+				}
+				first++;
+			}
+		}
+		catch (RuntimeException e){
+			System.out.println("Wrong value of option "+args[first-1]+".");
+			System.exit(-1);
+		}
+		
+		// Batch of runs
+		if (batch!=null){
+			try{
+				new BatchRunner(batch[0], Integer.parseInt(batch[1]), batch[2]).run();
+			}
+			catch (IOException | NumberFormatException e){
+				System.out.println("The batch can't be carried out: "+e.getMessage());
+				System.exit(-1);
+			}
+			return;
+		}
+		System.out.println("Random seed: "+RandomStreams.getSeed());
+		
 		// Separation mark between problem and algorithms ('--')
 		int sep;
-		for (sep=1;sep<args.length;sep++)
+		for (sep=first+1;sep<args.length;sep++)
 			if (args[sep].equals("--"))
 				break;
 				
 		// Generates the problem. 
-		String problemName = args[0];
-		String[] problemParams = Arrays.copyOfRange(args, 1, sep);
+		String problemName = args[first];
+		String[] problemParams = Arrays.copyOfRange(args, first+1, sep);
 		OptimizationProblem problem = OptimizationProblem.generateProblem(problemName, problemParams);
 
 		// Generates the algorithm. 
-		String algorithmName = args[sep+1];
-		String[] algorithmParams = Arrays.copyOfRange(args, sep+2, args.length);
-		OptimizationAlgorithm algorithm = OptimizationAlgorithm.generateAlgorithm(algorithmName, algorithmParams);
+		OptimizationAlgorithm algorithm;
+		String[] algorithmParams = Arrays.copyOfRange(args, Math.min(sep+2, args.length), args.length);
+		if (coordinator!=null){
+			algorithm = new Coordinator();
+			algorithm.setParams(coordinator);
+		}
+		else if (worker!=null){
+			if (!args[sep+1].equals("GeneticAlgorithm"))
+				System.out.println("Workers always run a GeneticAlgorithm.");
+			int colon = worker.lastIndexOf(':');
+			algorithm = new Worker(worker.substring(0, colon), Integer.parseInt(worker.substring(colon+1)), migrationInterval, migrants);
+			algorithm.setParams(algorithmParams);
+		}
+		else
+			algorithm = OptimizationAlgorithm.generateAlgorithm(args[sep+1], algorithmParams);
+
+		// Checkpoints
+		if ((checkpointFile!=null || resumeFile!=null) && !algorithm.supportsCheckpoints())
+			System.out.println("The algorithm can't be checkpointed, the options -checkpoint and -resume are ignored.");
+		else{
+			if (checkpointFile!=null)
+				algorithm.setCheckpoint(checkpointFile, checkpointInterval);
+			if (resumeFile!=null)
+				algorithm.setResume(resumeFile);
+		}
+
+		if (cacheEntries>0)
+			algorithm.setFitnessCache(cacheEntries, cachePolicy);
+		
+		algorithm.setInitializer(initializer);
+		
+		// Budget of the search (in addition to the stop criterion of the algorithm, if any)
+		if (timeLimit>0)
+			algorithm.setTimeLimit(timeLimit);
+		if (maxEvaluations>0)
+			algorithm.setMaxEvaluations(maxEvaluations);
+		if (targetScore>Double.NEGATIVE_INFINITY)
+			algorithm.setTargetScore(targetScore);
+		if (lowerBound)
+			algorithm.setLowerBound(true);
+		if (targetGap>=0)
+			algorithm.setTargetGap(targetGap);
+
+		// Progress reports, sampled in the background
+		ProgressReporter reporter = null;
+		if (reportInterval>0 || csvFile!=null){
+			reporter = new ProgressReporter((long) (1000*(reportInterval>0 ? reportInterval : 1)));
+			if (reportInterval>0)
+				reporter.addSink(new ConsoleSink());
+			if (csvFile!=null){
+				try{
+					reporter.addSink(new CsvSink(csvFile));
+				}
+				catch (IOException e){
+					System.out.println("The file "+csvFile+" can't be created.");
+					System.exit(-1);
+				}
+			}
+			algorithm.setProgressReporter(reporter);
+		}
 
 		// Sets the problem
 		algorithm.setProblem(problem);
 		// Carries out the search.
 		algorithm.search();
+		if (reporter!=null)
+			reporter.close();
 		
 		// Shows the results.
 		algorithm.showResults();
@@ -35,9 +218,10 @@ public class Solver {
 		System.out.println(bestConfiguration+"\n");
 		
 		// Displays the result if the problem can be visualized. 
-		if (problem instanceof ProblemVisualizable) {
+		if (problem instanceof ProblemVisualizable && bestConfiguration!=null) {
 			ProblemView problemView = ((ProblemVisualizable)problem).getView();
-			problemView.display(bestConfiguration);
+			if (problemView!=null)
+				problemView.display(bestConfiguration);
 		}
 	}	
 }
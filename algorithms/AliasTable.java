@@ -0,0 +1,88 @@
+package algorithms;
+
+/* Imported packages from Java */
+import java.util.Random;
+
+/**
+ * Alias table (Vose's method) to draw indices with probabilities proportional to a set of
+ * weights. Building it takes O(n) and each draw O(1) with a single random number, so the
+ * fitness-proportional selections of GeneticAlgorithm cost O(n) per generation. All the
+ * arrays are allocated once and reused by later builds.
+ */
+public class AliasTable {
+
+	/* Table */
+	private final double[] probability;			// Probability of keeping the index drawn (otherwise, its alias)
+	private final int[] alias;
+	private int size;
+
+	/* Worklists used while building */
+	private final int[] small, large;
+	private final double[] scaled;
+
+	/** Creates a table for up to capacity weights. */
+	public AliasTable(int capacity) {
+
+		probability = new double[capacity];
+		alias = new int[capacity];
+		small = new int[capacity];
+		large = new int[capacity];
+		scaled = new double[capacity];
+	}
+
+	/** Builds the table for weights[0..n-1] (non-negative, and at least one positive). */
+	public void build(double[] weights, int n) {
+
+		size = n;
+		double total = 0;
+		for(int i = 0; i < n; i++)
+			total += weights[i];
+
+		// Splits the indices into those below and above the mean weight
+		int numSmall = 0, numLarge = 0;
+		for(int i = 0; i < n; i++) {
+
+			scaled[i] = weights[i] * n / total;
+			if(scaled[i] < 1)
+				small[numSmall++] = i;
+			else
+				large[numLarge++] = i;
+		}
+
+		// Each small index is completed with a part of a large one
+		while(numSmall > 0 && numLarge > 0) {
+
+			int less = small[--numSmall];
+			int more = large[--numLarge];
+			probability[less] = scaled[less];
+			alias[less] = more;
+			scaled[more] = scaled[more] + scaled[less] - 1;
+			if(scaled[more] < 1)
+				small[numSmall++] = more;
+			else
+				large[numLarge++] = more;
+		}
+
+		// The rest are (up to rounding errors) full
+		while(numLarge > 0) {
+
+			int i = large[--numLarge];
+			probability[i] = 1;
+			alias[i] = i;
+		}
+		while(numSmall > 0) {
+
+			int i = small[--numSmall];
+			probability[i] = 1;
+			alias[i] = i;
+		}
+	}
+
+	/** Draws an index: the integer part of a random number in [0, n) chooses a column and the fraction decides between the index and its alias. */
+	public int sample(Random random) {
+
+		double value = random.nextDouble() * size;
+		int i = Math.min((int) value, size - 1);
+		return value - i < probability[i] ? i : alias[i];
+	}
+}
@@ -0,0 +1,570 @@
+package algorithms;
+
+/* Imported packages from Java */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Imported packages within the project */
+import optimization.Configuration;
+import optimization.Initializer;
+import optimization.OptimizationAlgorithm;
+import optimization.ProblemMetric;
+
+/**
+ * Exact solver for mid-size instances (branch and bound with Held-Karp bounds). The path
+ * from the agent to the exit plus the edge from the exit back to the agent is a tour, so
+ * the bound of each node of the search tree is that of a 1-tree rooted at the agent with
+ * that edge forced (see HeldKarpBound), computed with the edges that the node includes or
+ * excludes and improved by subgradient optimization, starting from the penalties of its
+ * parent. A node is pruned when its bound reaches the best path found (the incumbent);
+ * if its 1-tree is a path, it is a new incumbent. Otherwise it branches on a node of
+ * degree greater than 2 and two of its edges e1, e2: exclude e1; include e1 and exclude
+ * e2; include both. Included edges always form paths: a node with two included edges
+ * loses the rest, and the edge that would close a path into a cycle is excluded.
+ *
+ * The incumbent begins as the tour of an iterated Lin-Kernighan search, and is shared by
+ * all the threads, which explore the subtrees as fork-join tasks (work stealing). If the
+ * search is stopped (time budget), the best path is kept but it is not proven optimal.
+ *
+ * Requires a problem that implements ProblemMetric. Parameters: number of threads
+ * (default: all the processors).
+ */
+public class BranchAndBound extends OptimizationAlgorithm {
+
+	/* Parameters */
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/* Instance: cities, the agent (root of the 1-trees) and the exit */
+	private int numNodes, root, end;
+	private double[] dist;						// Distance between nodes i and j at i*numNodes+j
+
+	/* Shared state of the search */
+	private final AtomicLong incumbent = new AtomicLong();	// Bits of the length of the best path
+	private final LongAdder nodes = new LongAdder();
+	private final LongAdder pruned = new LongAdder();
+	private volatile boolean stopped;
+	private double rootBound;
+	private boolean proven;
+	private long searchNanos;
+
+	/* Edge states */
+	private static final byte FREE = 0, INCLUDED = 1, EXCLUDED = -1;
+
+	/* Subgradient optimization */
+	private static final int ROOT_ITERATIONS = 1000;
+	private static final int NODE_ITERATIONS = 50;
+	private static final int STALL_ITERATIONS = 5;	// Iterations without improvement before halving the step
+	private static final double MIN_LAMBDA = 1e-3;
+	private static final double EPSILON = 1e-9;
+
+	/* Initial incumbent: kicks of iterated LK per city */
+	private static final int KICKS_PER_CITY = 10;
+
+	/* Period (milliseconds) with which the main thread checks the budget */
+	private static final long POLL_PERIOD = 50;
+
+	@Override
+	public void search() {
+
+		// Algorithms must call this function always!
+		initSearch();
+
+		if(!(problem instanceof ProblemMetric)) {
+
+			System.out.println("BranchAndBound requires a problem with distances between nodes (ProblemMetric).");
+			stopSearch();
+			return;
+		}
+
+		ProblemMetric metric = (ProblemMetric) problem;
+		int size = problem.size();
+		numNodes = size + 2;
+		root = size;
+		end = size + 1;
+		dist = new double[numNodes * numNodes];
+		for(int i = 0; i < numNodes; i++)
+			for(int j = 0; j < numNodes; j++)
+				dist[i * numNodes + j] = i == j ? 0 : metric.distance(i, j);
+		nodes.reset();
+		pruned.reset();
+		stopped = false;
+		proven = false;
+		rootBound = Double.NEGATIVE_INFINITY;
+
+		if(size < 3) {
+
+			// At most two paths: the cities in order and reversed
+			int[] forward = new int[size], backward = new int[size];
+			for(int i = 0; i < size; i++) {
+
+				forward[i] = i;
+				backward[i] = size - 1 - i;
+			}
+			evaluate(new Configuration(forward));
+			evaluate(new Configuration(backward));
+			proven = true;
+			stopSearch();
+			return;
+		}
+
+		// Initial incumbent
+		LinKernighan heuristic = new LinKernighan();
+		heuristic.setProblem(problem);
+		heuristic.setInitializer(Initializer.GREEDY_EDGE);
+		heuristic.kicks = KICKS_PER_CITY * size;
+		heuristic.search();
+		Configuration initial = heuristic.getBestSolution().clone();
+		incumbent.set(Double.doubleToLongBits(evaluate(initial)));
+
+		// Explores the tree, checking the budget from this thread
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		ForkJoinTask<Void> task = pool.submit(new BranchTask(rootNode(), true));
+		while(!task.isDone()) {
+
+			try {
+
+				task.get(POLL_PERIOD, TimeUnit.MILLISECONDS);
+			} catch(TimeoutException e) {
+
+				metrics.setGeneration(nodes.sum());
+				if(isStopRequested())
+					stopped = true;
+			} catch(InterruptedException | ExecutionException e) {
+
+				stopped = true;
+				System.out.println("The branch and bound failed: " + e.getMessage());
+				break;
+			}
+		}
+		pool.shutdown();
+		proven = !stopped;
+		searchNanos = System.nanoTime() - start;
+		metrics.setGeneration(nodes.sum());
+
+		stopSearch();
+	}
+
+	/* Node of the search tree without decisions but the forced edge */
+	private Node rootNode() {
+
+		Node node = new Node(numNodes);
+		node.include(root, end);
+		return node;
+	}
+
+	/* Length of the best path found */
+	private double incumbent() {
+
+		return Double.longBitsToDouble(incumbent.get());
+	}
+
+	/* Stores a path as the incumbent if it is shorter */
+	private void offer(int[] path) {
+
+		Configuration configuration = new Configuration(path);
+		double length = evaluate(configuration);
+		long current;
+		do {
+
+			current = incumbent.get();
+			if(length >= Double.longBitsToDouble(current))
+				return;
+		} while(!incumbent.compareAndSet(current, Double.doubleToLongBits(length)));
+	}
+
+	/** Fork-join task that bounds a node of the search tree and explores its children. */
+	private class BranchTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Node node;
+		private final boolean isRoot;
+
+		BranchTask(Node node, boolean isRoot) {
+
+			this.node = node;
+			this.isRoot = isRoot;
+		}
+
+		@Override
+		protected void compute() {
+
+			if(stopped)
+				return;
+			nodes.increment();
+			OneTree tree = new OneTree(numNodes);
+			double bound = ascent(node, tree, isRoot);
+			if(isRoot)
+				rootBound = bound;
+			if(Double.isNaN(bound) || bound >= incumbent() * (1 - EPSILON)) {
+
+				pruned.increment();
+				return;
+			}
+			if(tree.isTour()) {
+
+				offer(tree.path());
+				return;
+			}
+
+			List<BranchTask> children = new ArrayList<>(3);
+			for(Node child : branch(node, tree))
+				children.add(new BranchTask(child, false));
+			invokeAll(children);
+		}
+	}
+
+	/*
+	 * Subgradient optimization of the penalties of a node (Polyak steps towards the
+	 * incumbent). Leaves in the node the best penalties and in tree their 1-tree, and
+	 * returns its bound (NaN if the node has no 1-tree, so no path either).
+	 */
+	private double ascent(Node node, OneTree tree, boolean isRoot) {
+
+		double[] pi = node.pi.clone();
+		double best = Double.NEGATIVE_INFINITY;
+		double lambda = isRoot ? 2 : 0.5;
+		int stall = 0;
+		int iterations = isRoot ? ROOT_ITERATIONS : NODE_ITERATIONS;
+		for(int iteration = 0; iteration < iterations && lambda > MIN_LAMBDA && !stopped; iteration++) {
+
+			double bound = tree.build(node, pi);
+			if(Double.isNaN(bound))
+				return Double.NaN;
+			if(bound > best + EPSILON) {
+
+				best = bound;
+				System.arraycopy(pi, 0, node.pi, 0, numNodes);
+				stall = 0;
+			}
+			else if(++stall == STALL_ITERATIONS) {
+
+				lambda /= 2;
+				stall = 0;
+			}
+			double upper = incumbent();
+			if(best >= upper * (1 - EPSILON) || tree.isTour())
+				break;
+			int norm = 0;
+			for(int v = 0; v < numNodes; v++)
+				if(v != root)
+					norm += (tree.degree[v] - 2) * (tree.degree[v] - 2);
+			double step = lambda * (upper - bound) / norm;
+			for(int v = 0; v < numNodes; v++)
+				if(v != root)
+					pi[v] += step * (tree.degree[v] - 2);
+		}
+		return tree.build(node, node.pi);
+	}
+
+	/* Children of a node whose 1-tree is not a tour (the infeasible ones are discarded) */
+	private List<Node> branch(Node node, OneTree tree) {
+
+		// Node of the highest degree, and its two shortest free edges in the 1-tree
+		int v = -1;
+		for(int u = 0; u < numNodes; u++)
+			if(u != root && (v < 0 || tree.degree[u] > tree.degree[v]))
+				v = u;
+		int e1 = -1, e2 = -1;
+		for(int u = 0; u < numNodes; u++)
+			if(u != v && tree.hasEdge(v, u) && node.state(v, u) == FREE) {
+
+				if(e1 < 0 || dist[v * numNodes + u] < dist[v * numNodes + e1]) {
+
+					e2 = e1;
+					e1 = u;
+				}
+				else if(e2 < 0 || dist[v * numNodes + u] < dist[v * numNodes + e2])
+					e2 = u;
+			}
+
+		List<Node> children = new ArrayList<>(3);
+		if(node.includedDegree(v) == 0) {
+
+			// Both edges included (explored first, as it is the closest to a path)
+			Node both = node.copy();
+			if(both.include(v, e1) && both.include(v, e2))
+				children.add(both);
+			Node second = node.copy();
+			if(second.include(v, e1) && second.exclude(v, e2))
+				children.add(second);
+		}
+		else {
+
+			Node first = node.copy();
+			if(first.include(v, e1))
+				children.add(first);
+		}
+		Node none = node.copy();
+		if(none.exclude(v, e1))
+			children.add(none);
+		return children;
+	}
+
+	/** Edges included and excluded at a node of the search tree, and its penalties. */
+	private class Node {
+
+		private final byte[] states;			// State of edge (i,j) at i*numNodes+j (and j*numNodes+i)
+		private final int[] partner;			// Nodes joined to node i by included edges at 2i, 2i+1 (-1 if none)
+		private final int[] available;			// Edges of each node that are not excluded
+		private final double[] pi;
+		private int pathNodes;					// Set by otherEnd()
+
+		Node(int numNodes) {
+
+			states = new byte[numNodes * numNodes];
+			partner = new int[2 * numNodes];
+			Arrays.fill(partner, -1);
+			available = new int[numNodes];
+			Arrays.fill(available, numNodes - 1);
+			pi = new double[numNodes];
+		}
+
+		private Node(Node other) {
+
+			states = other.states.clone();
+			partner = other.partner.clone();
+			available = other.available.clone();
+			pi = other.pi.clone();
+		}
+
+		Node copy() {
+
+			return new Node(this);
+		}
+
+		byte state(int i, int j) {
+
+			return states[i * numNodes + j];
+		}
+
+		int includedDegree(int i) {
+
+			return partner[2 * i] < 0 ? 0 : partner[2 * i + 1] < 0 ? 1 : 2;
+		}
+
+		/* Excludes an edge; returns false if a node is left with fewer than two edges */
+		boolean exclude(int i, int j) {
+
+			if(state(i, j) == INCLUDED)
+				return false;
+			if(state(i, j) == EXCLUDED)
+				return true;
+			states[i * numNodes + j] = states[j * numNodes + i] = EXCLUDED;
+			return --available[i] >= 2 && --available[j] >= 2;
+		}
+
+		/* Includes an edge and propagates it; returns false if no path can have it */
+		boolean include(int i, int j) {
+
+			if(state(i, j) == INCLUDED)
+				return true;
+			if(state(i, j) == EXCLUDED || includedDegree(i) == 2 || includedDegree(j) == 2)
+				return false;
+			int first = otherEnd(i), length = pathNodes;
+			int last = otherEnd(j);
+			boolean closes = first == j;
+			if(!closes)
+				length += pathNodes;
+			else if(length < numNodes)
+				return false;
+			states[i * numNodes + j] = states[j * numNodes + i] = INCLUDED;
+			partner[2 * i + includedDegree(i)] = j;
+			partner[2 * j + includedDegree(j)] = i;
+
+			// The edge that would close the path into a cycle is excluded, unless the path visits every node
+			if(!closes && length > 2 && !(length < numNodes ? exclude(first, last) : include(first, last)))
+				return false;
+
+			// Nodes with two included edges lose the rest
+			for(int node : new int[] {i, j})
+				if(includedDegree(node) == 2)
+					for(int other = 0; other < numNodes; other++)
+						if(other != node && state(node, other) == FREE && !exclude(node, other))
+							return false;
+			return true;
+		}
+
+		/* Other end of the path of included edges that ends at node (its number of nodes is left in pathNodes) */
+		private int otherEnd(int node) {
+
+			int previous = -1;
+			pathNodes = 1;
+			while(true) {
+
+				int next = partner[2 * node] != previous ? partner[2 * node] : partner[2 * node + 1];
+				if(next < 0)
+					return node;
+				previous = node;
+				node = next;
+				pathNodes++;
+			}
+		}
+	}
+
+	/** Minimum 1-tree of a node of the search tree (with the edges it includes and without those it excludes). */
+	private class OneTree {
+
+		private final int[] parent;				// Parent of each node in the spanning tree of all but the root
+		private final int[] degree;
+		private final double[] key;
+		private final boolean[] inTree, forced;
+		private int rootNeighbor;				// City joined to the root besides the end
+
+		OneTree(int numNodes) {
+
+			parent = new int[numNodes];
+			degree = new int[numNodes];
+			key = new double[numNodes];
+			inTree = new boolean[numNodes];
+			forced = new boolean[numNodes];
+		}
+
+		/* Builds the 1-tree with the given penalties; returns its bound, or NaN if there is none */
+		double build(Node node, double[] pi) {
+
+			// Prim's algorithm without the root: included edges are taken as soon as they are reached
+			Arrays.fill(key, Double.POSITIVE_INFINITY);
+			Arrays.fill(parent, -1);
+			Arrays.fill(inTree, false);
+			Arrays.fill(forced, false);
+			Arrays.fill(degree, 0);
+			inTree[root] = true;
+			key[end] = 0;
+			double length = 0;
+			for(int added = 1; added < numNodes; added++) {
+
+				int u = -1;
+				for(int v = 0; v < numNodes; v++)
+					if(!inTree[v] && (u < 0 || forced[v] && !forced[u] || forced[v] == forced[u] && key[v] < key[u]))
+						u = v;
+				if(key[u] == Double.POSITIVE_INFINITY)
+					return Double.NaN;
+				inTree[u] = true;
+				length += key[u];
+				if(parent[u] >= 0) {
+
+					degree[u]++;
+					degree[parent[u]]++;
+				}
+				for(int v = 0; v < numNodes; v++) {
+
+					if(inTree[v] || forced[v])
+						continue;
+					byte state = node.state(u, v);
+					if(state == EXCLUDED)
+						continue;
+					double weight = dist[u * numNodes + v] + pi[u] + pi[v];
+					if(state == INCLUDED || weight < key[v]) {
+
+						key[v] = weight;
+						parent[v] = u;
+						forced[v] = state == INCLUDED;
+					}
+				}
+			}
+
+			// Edges of the root: the forced one to the end, and an included or the shortest free one to a city
+			rootNeighbor = -1;
+			double shortest = Double.POSITIVE_INFINITY;
+			for(int city = 0; city < numNodes; city++) {
+
+				if(city == root || city == end)
+					continue;
+				byte state = node.state(root, city);
+				double weight = dist[root * numNodes + city] + pi[city];
+				if(state == INCLUDED) {
+
+					rootNeighbor = city;
+					shortest = weight;
+					break;
+				}
+				if(state == FREE && weight < shortest) {
+
+					rootNeighbor = city;
+					shortest = weight;
+				}
+			}
+			if(rootNeighbor < 0)
+				return Double.NaN;
+			degree[root] = 2;
+			degree[end]++;
+			degree[rootNeighbor]++;
+			length += dist[root * numNodes + end] + pi[end] + shortest;
+			double sum = 0;
+			for(int v = 0; v < numNodes; v++)
+				sum += pi[v];
+			return length - 2 * sum - dist[root * numNodes + end];
+		}
+
+		boolean isTour() {
+
+			for(int v = 0; v < numNodes; v++)
+				if(degree[v] != 2)
+					return false;
+			return true;
+		}
+
+		boolean hasEdge(int i, int j) {
+
+			if(i == root || j == root)
+				return (i == root ? j : i) == end || (i == root ? j : i) == rootNeighbor;
+			return parent[i] == j || parent[j] == i;
+		}
+
+		/* Cities in the order of the tour, from the neighbour of the root to the end */
+		int[] path() {
+
+			int[] path = new int[numNodes - 2];
+			int previous = root, node = rootNeighbor;
+			for(int i = 0; i < path.length; i++) {
+
+				path[i] = node;
+				int next = -1;
+				for(int v = 0; v < numNodes && next < 0; v++)
+					if(v != previous && v != root && hasEdge(node, v))
+						next = v;
+				previous = node;
+				node = next;
+			}
+			return path;
+		}
+	}
+
+	/** Displays the statistics of the search. */
+	@Override
+	public void showAlgorithmStats() {
+
+		long explored = nodes.sum();
+		double seconds = searchNanos / 1e9;
+		System.out.println("Nodes explored: " + explored + " (" + pruned.sum() + " pruned), "
+				+ (seconds > 0 ? Math.round(explored / seconds) : 0) + " nodes/s");
+		System.out.println("Bound at the root: " + rootBound);
+		System.out.println(proven ? "The best path is optimal." : "The search was stopped: the best path may not be optimal.");
+	}
+
+	/** Parameters: number of threads (default: all the processors). */
+	@Override
+	public void setParams(String[] args) {
+
+		try {
+
+			if(args.length > 0)
+				threads = Math.max(1, Integer.parseInt(args[0]));
+		} catch(Exception ex) {
+
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+		System.out.println("Using the following configuration: threads = " + threads);
+	}
+}
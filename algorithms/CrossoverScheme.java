@@ -3,5 +3,9 @@ package algorithms;
 public enum CrossoverScheme {
 	
 	SIMPLE,
-	BLX;
+	BLX,
+	ORDER,
+	PMX,
+	EDGE_RECOMBINATION,
+	EDGE_ASSEMBLY;
 }
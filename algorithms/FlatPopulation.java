@@ -0,0 +1,110 @@
+package algorithms;
+
+/**
+ * Population stored as a structure of arrays: the values of all the individuals in a
+ * single contiguous array (individual i occupies positions i*length to i*length+length-1)
+ * and their scores in another one. Used by GeneticAlgorithm to run generations without
+ * allocating a Configuration per individual.
+ */
+public class FlatPopulation {
+
+	/* Global variables */
+	public final int size;					// Number of individuals
+	public final int length;				// Number of values of each individual
+	public final int[] values;				// Values of all the individuals
+	public final double[] scores;			// Score of each individual
+
+	/** Creates an empty population. */
+	public FlatPopulation(int size, int length) {
+
+		this.size = size;
+		this.length = length;
+		values = new int[size * length];
+		scores = new double[size];
+	}
+
+	/** Position of the first value of an individual in values. */
+	public int offset(int individual) {
+
+		return individual * length;
+	}
+
+	/** Copies an individual (values and score) into a position of another population. */
+	public void copyTo(int individual, FlatPopulation target, int targetIndividual) {
+
+		System.arraycopy(values, individual * length, target.values, targetIndividual * length, length);
+		target.scores[targetIndividual] = scores[individual];
+	}
+
+	/** Returns the individual with the lowest score. */
+	public int best() {
+
+		int best = 0;
+		for(int i = 1; i < size; i++)
+			if(scores[i] < scores[best])
+				best = i;
+		return best;
+	}
+
+	/** Returns the individual with the highest score. */
+	public int worst() {
+
+		int worst = 0;
+		for(int i = 1; i < size; i++)
+			if(scores[i] > scores[worst])
+				worst = i;
+		return worst;
+	}
+
+	/** Sorts indices[from..to-1] by increasing key (in place, without allocating). */
+	public static void sortByKey(int[] indices, double[] keys, int from, int to) {
+
+		while(to - from > 16) {
+
+			// Quicksort (median of three), recursing on the smaller half
+			int middle = (from + to) >>> 1;
+			double a = keys[indices[from]], b = keys[indices[middle]], c = keys[indices[to - 1]];
+			double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+			int i = from, j = to - 1;
+			while(i <= j) {
+
+				while(keys[indices[i]] < pivot)
+					i++;
+				while(keys[indices[j]] > pivot)
+					j--;
+				if(i <= j) {
+
+					int aux = indices[i];
+					indices[i] = indices[j];
+					indices[j] = aux;
+					i++;
+					j--;
+				}
+			}
+			if(j - from < to - i) {
+
+				sortByKey(indices, keys, from, j + 1);
+				from = i;
+			}
+			else {
+
+				sortByKey(indices, keys, i, to);
+				to = j + 1;
+			}
+		}
+
+		// Insertion sort for small ranges
+		for(int i = from + 1; i < to; i++) {
+
+			int index = indices[i];
+			double key = keys[index];
+			int j = i - 1;
+			while(j >= from && keys[indices[j]] > key) {
+
+				indices[j + 1] = indices[j];
+				j--;
+			}
+			indices[j + 1] = index;
+		}
+	}
+}
@@ -2,8 +2,9 @@ package algorithms;
 
 
 /* Imported packages from Java */
-import java.util.Random;
-import java.util.TreeMap;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -11,11 +12,14 @@ import java.util.Collections;
 /* Imported packages within the project */
 import optimization.Configuration;
 import optimization.OptimizationAlgorithm;
+import optimization.ProblemMetric;
+import utils.FastRandom;
+import utils.RandomStreams;
 
 public class GeneticAlgorithm extends OptimizationAlgorithm {
 	
 	/* Global variables */
-	private int generation = 0;						// Number of generations
+	protected int generation = 0;					// Number of generations
 	private int populationSize;						// Population size
 	private int maxGenerations;						// Maximum number of generations to be generated
 	
@@ -23,7 +27,22 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 	private CrossoverScheme	crossoverScheme;		// Crossover scheme
 	private ReplacementScheme replacementScheme;	// Replacement scheme
 	private StopCriterion stopCriterion;			// Stop criterion
+	private PermutationCrossover permutationCrossover;	// Permutation crossover operators (with their scratch buffers)
+	protected FastRandom random = RandomStreams.newStream();	// Random generator of all the operators (its state is checkpointed)
+	private Configuration[] currentPopulation;		// Current population (object representation, for checkpoints)
 
+	/* Flat representation of the population (see FlatPopulation): no objects are allocated per generation */
+	private boolean flatRepresentation;				// Whether the flat representation is used
+	private FlatPopulation flatPopulation;			// Current population
+	private FlatPopulation flatOffspring;			// New population
+	private FlatPopulation flatSpare;				// Auxiliary buffer used by truncation
+	private int[] selected;							// Indices of the selected individuals
+	private int[] order;							// Indices sorted by score
+	private double[] keys;							// Scores used to sort
+	private double[] weights;						// Selection weights
+	private AliasTable aliasTable;					// Draws the selected individuals (PROPORTION and RANK)
+	private int[] parent1, parent2, child;			// Individuals being crossed
+	
 	/* Variables just for standstill stop criterion */
 	private int maxDelta;							// Maximum number of generations in which the solution has not been improved 
 	private int currentDelta;						// Number of generations in which the solution has not been improved
@@ -37,17 +56,30 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 		Configuration[] populationPrime; // Prime population to be used as auxiliary one
 		boolean stopCondition;
 		
+		// Random configurations are generated with the stream of the algorithm
+		RandomStreams.bind(random);
+		
+		if(flatRepresentation) {
+			
+			searchFlat();
+			return;
+		}
+		
 		// Initialization
 		stopCondition = false;
 		
 		// Starts the search
 		initSearch();
+		initOperators();
 		
-		// Creates candidate individuals
-		population = generatePopulation();
-		
-		// Obtains their score
-		evaluatePopulation(population);
+		// Creates candidate individuals and obtains their score (unless the search is resumed from a checkpoint)
+		if(resume())
+			population = currentPopulation;
+		else {
+			
+			population = generatePopulation();
+			evaluatePopulation(population);
+		}
 		
 		while(!stopCondition) {
 		
@@ -56,9 +88,14 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 			mutation(populationPrime);									// Mutates the crossed individuals
 			evaluatePopulation(populationPrime);						// Obtains the score of the new population
 			population = combine(population, populationPrime).clone();	// Forms the new generation
+			exchange(population);										// Exchanges individuals with other populations (if any)
 			
 			// Checks stop condition
-			stopCondition = stopCriterion(++generation);
+			stopCondition = stopCriterion(++generation) || isStopRequested();
+			
+			// Saves the state of the search from time to time
+			currentPopulation = population;
+			checkpoint();
 		}
 		
 		// Finish the search
@@ -82,21 +119,53 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 			replacementScheme = ReplacementScheme.values()[Integer.parseInt(args[3])];
 			stopCriterion = StopCriterion.values()[Integer.parseInt(args[4])];
 
-			// Depending on the stop criterion selected, we are going to use a maximum number of generations or a delta value
-			if(stopCriterion.ordinal() == 0) {
-				
-				maxGenerations = Integer.parseInt(args[5]);
-				System.out.println("Using the following configuration: Selection = " + selectionScheme + ", Crossover = " + crossoverScheme + ", Replacement = " + replacementScheme + ", Maximum number of generations = " + maxGenerations + ", Population size = " + populationSize);
+			// Depending on the stop criterion selected, args[5] is a number of generations, a delta value or a budget
+			String configuration = "Using the following configuration: Selection = " + selectionScheme + ", Crossover = " + crossoverScheme + ", Replacement = " + replacementScheme;
+			switch(stopCriterion) {
+			
+				case GENERATIONS:
+					maxGenerations = Integer.parseInt(args[5]);
+					configuration += ", Maximum number of generations = " + maxGenerations;
+					break;
+					
+				case STANDSTILL:
+					maxDelta = Integer.parseInt(args[5]); // Maximum number of generations without improved solution
+					currentDelta = 0;
+					previousScore = Double.MAX_VALUE; // Actual score, as we are minimizing, the current is infinite
+					configuration += ", Maximum delta = " + maxDelta;
+					break;
+					
+				// Budgets, enforced by OptimizationAlgorithm.isStopRequested()
+				case TIME:
+					setTimeLimit(Double.parseDouble(args[5]));
+					configuration += ", Time limit = " + args[5] + " s";
+					break;
+					
+				case EVALUATIONS:
+					setMaxEvaluations(Long.parseLong(args[5]));
+					configuration += ", Maximum number of evaluations = " + args[5];
+					break;
+					
+				case TARGET_SCORE:
+					setTargetScore(Double.parseDouble(args[5]));
+					configuration += ", Target score = " + args[5];
+					break;
 			}
-
-			else {
+			System.out.println(configuration + ", Population size = " + populationSize);
+			
+			// Optional number of threads used to evaluate the population
+			if(args.length > 6) {
 				
-				maxDelta = Integer.parseInt(args[5]); // Maximum number of generations without improved solution
-				currentDelta = 0;
-				previousScore = Double.MAX_VALUE; // Actual score, as we are minimizing, the current is infinite
-				System.out.println("Using the following configuration: Selection = " + selectionScheme + ", Crossover = " + crossoverScheme + ", Replacement = " + replacementScheme + ", Maximum delta = " + maxDelta + ", Population size = " + populationSize);				
+				setEvaluationThreads(Integer.parseInt(args[6]));
+				System.out.println("Evaluating the population with " + evaluationThreads + " threads");
 			}
+			
+			// Optional flat representation of the population (only with permutation crossovers)
+			if(args.length > 7 && Integer.parseInt(args[7]) == 1) {
 				
+				flatRepresentation = crossoverScheme != CrossoverScheme.SIMPLE && crossoverScheme != CrossoverScheme.BLX;
+				System.out.println(flatRepresentation ? "Using the flat representation of the population" : "The flat representation requires a permutation crossover, using the object one");
+			}
 			
 			// Checks for population size be even
 			if(populationSize % 2 != 0) {
@@ -117,10 +186,318 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 		}
 	}
 	
+	/* Search with the flat representation. Same steps as search(), but generations reuse the buffers */
+	private void searchFlat() {
+		
+		// Local variables
+		FlatPopulation aux;
+		int size;
+		boolean stopCondition;
+		
+		// Initialization
+		stopCondition = false;
+		
+		// Starts the search
+		initSearch();
+		initOperators();
+		
+		size = problem.size();
+		flatPopulation = new FlatPopulation(populationSize, size);
+		flatOffspring = new FlatPopulation(populationSize, size);
+		flatSpare = new FlatPopulation(populationSize, size);
+		selected = new int[populationSize];
+		parent1 = new int[size];
+		parent2 = new int[size];
+		child = new int[size];
+		// Creates candidate individuals and obtains their score (unless the search is resumed from a checkpoint)
+		if(!resume()) {
+			
+			for(int i = 0; i < populationSize; i++)
+				System.arraycopy(initialConfiguration().getValues(), 0, flatPopulation.values, flatPopulation.offset(i), size);
+			evaluateAll(flatPopulation.values, flatPopulation.scores, populationSize);
+		}
+		
+		while(!stopCondition) {
+			
+			selectFlat(flatPopulation);													// Selects some individuals by score
+			crossoverFlat(flatPopulation, flatOffspring);								// Crosses pairs of selected individuals
+			mutationFlat(flatOffspring);												// Mutates the children
+			evaluateAll(flatOffspring.values, flatOffspring.scores, populationSize);	// Obtains the score of the new population
+			
+			// Forms the new generation (swapping the buffers)
+			switch(replacementScheme) {
+			
+				case ELITISM:
+					flatPopulation.copyTo(flatPopulation.best(), flatOffspring, flatOffspring.worst());
+					break;
+					
+				case TRUNCATION:
+					truncationFlat();
+					break;
+					
+				default:
+					break;
+			}
+			aux = flatPopulation;
+			flatPopulation = flatOffspring;
+			flatOffspring = aux;
+			exchange(flatPopulation);
+			
+			// Checks stop condition
+			stopCondition = stopCriterion(++generation) || isStopRequested();
+			
+			// Saves the state of the search from time to time
+			checkpoint();
+		}
+		
+		// Finish the search
+		stopSearch();
+	}
+	
+	/* Fills selected with the indices of the individuals chosen by the selection scheme */
+	private void selectFlat(FlatPopulation population) {
+		
+		switch(selectionScheme) {
+		
+			case PROPORTION:
+				// Probability proportional to 1 / score
+				for(int i = 0; i < populationSize; i++)
+					weights[i] = 1 / population.scores[i];
+				aliasTable.build(weights, populationSize);
+				for(int i = 0; i < populationSize; i++)
+					selected[i] = aliasTable.sample(random);
+				break;
+				
+			case RANK:
+				// Probability proportional to populationSize - rank (the table is built once, in initOperators())
+				for(int i = 0; i < populationSize; i++)
+					order[i] = i;
+				FlatPopulation.sortByKey(order, population.scores, 0, populationSize);
+				for(int i = 0; i < populationSize; i++)
+					selected[i] = order[aliasTable.sample(random)];
+				break;
+				
+			case TOURNAMENT:
+				// Best of two random individuals
+				for(int i = 0; i < populationSize; i++) {
+					
+					int a = random.nextInt(populationSize);
+					int b = random.nextInt(populationSize);
+					selected[i] = population.scores[a] <= population.scores[b] ? a : b;
+				}
+				break;
+		}
+	}
+	
+	/* Crosses the selected individuals in consecutive pairs, writing the children in offspring */
+	private void crossoverFlat(FlatPopulation population, FlatPopulation offspring) {
+		
+		int size = problem.size();
+		for(int i = 0; i < populationSize; i = i + 2) {
+			
+			System.arraycopy(population.values, population.offset(selected[i]), parent1, 0, size);
+			System.arraycopy(population.values, population.offset(selected[i + 1]), parent2, 0, size);
+			
+			permutationCrossover.cross(crossoverScheme, parent1, parent2, child);
+			System.arraycopy(child, 0, offspring.values, offspring.offset(i), size);
+			permutationCrossover.cross(crossoverScheme, parent2, parent1, child);
+			System.arraycopy(child, 0, offspring.values, offspring.offset(i + 1), size);
+		}
+	}
+	
+	/* Swaps two random positions of some individuals */
+	private void mutationFlat(FlatPopulation population) {
+		
+		final double mutationProbability = 0.1;
+		int size = problem.size();
+		
+		for(int i = 0; i < populationSize; i++) {
+			
+			if(random.nextDouble() < mutationProbability) {
+				
+				int a = population.offset(i) + random.nextInt(size);
+				int b = population.offset(i) + random.nextInt(size);
+				int aux = population.values[a];
+				population.values[a] = population.values[b];
+				population.values[b] = aux;
+			}
+		}
+	}
+	
+	/* Keeps in flatOffspring the best individuals among both populations */
+	private void truncationFlat() {
+		
+		FlatPopulation aux;
+		
+		for(int i = 0; i < populationSize; i++) {
+			
+			keys[i] = flatPopulation.scores[i];
+			keys[populationSize + i] = flatOffspring.scores[i];
+		}
+		for(int i = 0; i < 2 * populationSize; i++)
+			order[i] = i;
+		FlatPopulation.sortByKey(order, keys, 0, 2 * populationSize);
+		
+		for(int rank = 0; rank < populationSize; rank++) {
+			
+			int index = order[rank];
+			if(index < populationSize)
+				flatPopulation.copyTo(index, flatSpare, rank);
+			else
+				flatOffspring.copyTo(index - populationSize, flatSpare, rank);
+		}
+		
+		aux = flatOffspring;
+		flatOffspring = flatSpare;
+		flatSpare = aux;
+	}
+	
+	/* Checkpoints: the population, the generation, the standstill counters and the random generator */
+	
+	@Override
+	public boolean supportsCheckpoints() {
+		
+		return true;
+	}
+	
+	@Override
+	protected void writeState(DataOutputStream out) throws IOException {
+		
+		out.writeBoolean(flatRepresentation);
+		out.writeInt(generation);
+		out.writeInt(currentDelta);
+		out.writeDouble(previousScore);
+		out.writeLong(random.getState());
+		out.writeInt(populationSize);
+		
+		for(int i = 0; i < populationSize; i++) {
+			
+			if(flatRepresentation) {
+				
+				for(int j = flatPopulation.offset(i); j < flatPopulation.offset(i + 1); j++)
+					out.writeInt(flatPopulation.values[j]);
+				out.writeDouble(flatPopulation.scores[i]);
+			}
+			else {
+				
+				writeValues(out, currentPopulation[i].getValues());
+				out.writeDouble(currentPopulation[i].score());
+			}
+		}
+	}
+	
+	@Override
+	protected void readState(DataInputStream in) throws IOException {
+		
+		if(in.readBoolean() != flatRepresentation)
+			throw new IOException("it uses a different representation of the population");
+		generation = in.readInt();
+		currentDelta = in.readInt();
+		previousScore = in.readDouble();
+		random.setState(in.readLong());
+		if(in.readInt() != populationSize)
+			throw new IOException("it has a different population size");
+		
+		currentPopulation = flatRepresentation ? null : new Configuration[populationSize];
+		for(int i = 0; i < populationSize; i++) {
+			
+			if(flatRepresentation) {
+				
+				for(int j = flatPopulation.offset(i); j < flatPopulation.offset(i + 1); j++)
+					flatPopulation.values[j] = in.readInt();
+				flatPopulation.scores[i] = in.readDouble();
+			}
+			else {
+				
+				currentPopulation[i] = new Configuration(readValues(in));
+				currentPopulation[i].setScore(in.readDouble());
+			}
+		}
+	}
+	
 	/* Methods needed for the genetic algorithm */
 	
+	/* Called after each generation with the new population. Nothing to do, unless the population is an island (see IslandGeneticAlgorithm) */
+	protected void exchange(Configuration[] population) {
+	}
+	
+	/* Same as exchange(), for the flat representation */
+	protected void exchange(FlatPopulation population) {
+	}
+	
+	/* Returns copies of the best individuals of the population (migrants for other populations) */
+	protected Configuration[] emigrants(Configuration[] population, int count) {
+		
+		Configuration[] sorted = population.clone();
+		Arrays.sort(sorted);
+		
+		Configuration[] migrants = new Configuration[Math.min(count, sorted.length)];
+		for(int i = 0; i < migrants.length; i++)
+			migrants[i] = sorted[i].clone();
+		return migrants;
+	}
+	
+	/* Same as emigrants(), for the flat representation */
+	protected Configuration[] emigrants(FlatPopulation population, int count) {
+		
+		int[] indices = new int[population.size];
+		for(int i = 0; i < population.size; i++)
+			indices[i] = i;
+		FlatPopulation.sortByKey(indices, population.scores, 0, population.size);
+		
+		Configuration[] migrants = new Configuration[Math.min(count, population.size)];
+		for(int i = 0; i < migrants.length; i++) {
+			
+			int offset = population.offset(indices[i]);
+			migrants[i] = new Configuration(Arrays.copyOfRange(population.values, offset, offset + population.length));
+			migrants[i].setScore(population.scores[indices[i]]);
+		}
+		return migrants;
+	}
+	
+	/* Replaces the worst individual of the population with the migrant, if it is better */
+	protected void immigrate(Configuration[] population, Configuration migrant) {
+		
+		int worst = 0;
+		for(int i = 1; i < population.length; i++)
+			if(population[i].score() > population[worst].score())
+				worst = i;
+		if(migrant.score() < population[worst].score())
+			population[worst] = migrant;
+	}
+	
+	/* Same as immigrate(), for the flat representation */
+	protected void immigrate(FlatPopulation population, Configuration migrant) {
+		
+		int worst = population.worst();
+		if(migrant.score() < population.scores[worst]) {
+			
+			System.arraycopy(migrant.getValues(), 0, population.values, population.offset(worst), population.length);
+			population.scores[worst] = migrant.score();
+		}
+	}
+	
+	/* Prepares the operators for the current problem (scratch buffers of the permutation crossovers) */
+	protected void initOperators() {
+		
+		ProblemMetric metric = (problem instanceof ProblemMetric) ? (ProblemMetric) problem : null;
+		permutationCrossover = new PermutationCrossover(problem.size(), metric, random);
+		
+		// Selection buffers (order and keys are also used by the flat replacement)
+		order = new int[2 * populationSize];
+		keys = new double[2 * populationSize];
+		weights = new double[populationSize];
+		aliasTable = new AliasTable(populationSize);
+		if(selectionScheme == SelectionScheme.RANK) {
+			
+			for(int rank = 0; rank < populationSize; rank++)
+				weights[rank] = populationSize - rank;
+			aliasTable.build(weights, populationSize);
+		}
+	}
+	
 	/* Generates the initial population */
-	private Configuration[] generatePopulation() {
+	protected Configuration[] generatePopulation() {
 		
 		// Local variables
 		Configuration[] population;
@@ -129,20 +506,19 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 		population = new Configuration[populationSize];
 		
 		for(int i = 0; i < populationSize; i++)
-			population[i] = problem.genRandomConfiguration();
+			population[i] = initialConfiguration();
 		
 		return population;
 	}
 	
-	/* Evaluates the current population */
+	/* Evaluates the current population (in parallel if several evaluation threads were set) */
 	private void evaluatePopulation(Configuration[] population) {
 		
-		for(int i = 0; i < population.length; i++)
-			evaluate(population[i]);
+		evaluateAll(population);
 	}
 	
 	/* Select the current population according to the selected criteria */
-	private Configuration[] selectPopulation(Configuration[] population) {
+	protected Configuration[] selectPopulation(Configuration[] population) {
 		
 		// Applies the corresponding selection scheme
 		switch(selectionScheme) {
@@ -162,91 +538,36 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 		}
 	}
 	
-	/* Selects the population according to proportion based selection */
+	/* Selects the population according to proportion based selection (probability proportional to 1 / score) */
 	private Configuration[] proportionBasedSelection(Configuration[] population) {
 		
-		// Local variables
-		Random random;	// Random generator
+		Configuration[] selectedPopulation = new Configuration[populationSize];
 		
-		Configuration[] selectedPopulation;							// Selected population according to the probability
-		TreeMap<Double, Configuration> accumulatedProbabilities;	// TreeMap to store probabilities and the corresponding configuration
-		double accumulatedProbability;
-		double totalProbability;
-		
-		// Initialization
-		random = new Random();
-		
-		selectedPopulation = new Configuration[populationSize];
-		accumulatedProbabilities = new TreeMap<Double, Configuration>();
-		accumulatedProbability = 0;
-		totalProbability = 0;
-		
-		// First, we compute the total probability
-		for(Configuration individual : population)	
-			totalProbability += 1 / individual.score();
-		
-		// Calculates the accumulated probability of each individual
-		for(Configuration individual : population) {
-			
-			accumulatedProbability += ((1 / individual.score()) / totalProbability);
-			accumulatedProbabilities.put(accumulatedProbability, individual);
-		}
+		for(int i = 0; i < populationSize; i++)
+			weights[i] = 1 / population[i].score();
+		aliasTable.build(weights, populationSize);
 		
-		// Second, we select the individuals
-		for(int i = 0; i < populationSize; i++) {
-			
-			// MOST IMPORTANT PART
-			// 1. Using a TreeMap we can store the accumulated probabilities and the corresponding configuration
-			// 2. Using method tailMap(K fromKey, boolean inclusive) we can obtain 
-			// a view of the portion of this map whose keys are greater than (or equal to, if inclusive is true) fromKey.
-			// 3. So, if we take inclusive false and we keep the first element, we get the one that we want
-			selectedPopulation[i] = accumulatedProbabilities.tailMap(random.nextDouble(), false).firstEntry().getValue().clone();
-		}
+		for(int i = 0; i < populationSize; i++)
+			selectedPopulation[i] = population[aliasTable.sample(random)].clone();
 		
 		return selectedPopulation;
 	}
 	
-	/* Selects the population according to rank assignation selection */
+	/* Selects the population according to rank assignation selection (probability proportional to populationSize - rank) */
 	private Configuration[] rankAssignationSelection(Configuration[] population) {
 		
-		// Local variables
-		Random random;	// Random generator
-				
-		Configuration[] selectedPopulation;							// Selected population according to the probability
-		TreeMap<Double, Configuration> accumulatedProbabilities;	// TreeMap to store probabilities and the corresponding configuration
-		ArrayList<Configuration> sortedConfigurations;				// ArrayList with the ordered configurations
-		double accumulatedProbability;								// Accumulated probability along the rank
-		double summation;											// Series sum
-		
-		// Initialization
-		random = new Random();
-		
-		selectedPopulation = new Configuration[populationSize];
-		accumulatedProbabilities = new TreeMap<Double, Configuration>();	
-		sortedConfigurations = new ArrayList<Configuration>(Arrays.asList(population));
-		Collections.sort(sortedConfigurations);
-		accumulatedProbability = 0;
-		
-		// First, calculates the summation using arithmetic progression sum formula 
-		summation = populationSize * (1 + populationSize) / 2;
-		
-		// Calculates the accumulated probability of each individual
-		for(Configuration individual : population) {
-			
-			accumulatedProbability += (populationSize - sortedConfigurations.indexOf(individual)) / summation;
-			accumulatedProbabilities.put(accumulatedProbability, individual);		
-		}
+		Configuration[] selectedPopulation = new Configuration[populationSize];
 		
-		// Second, we select the individuals
+		// Sorts the individuals by score (the rank table is built once, in initOperators())
 		for(int i = 0; i < populationSize; i++) {
 			
-			// MOST IMPORTANT PART
-			// 1. Using a TreeMap we can store the accumulated probabilities and the corresponding configuration
-			// 2. Using method tailMap(K fromKey, boolean inclusive) we can obtain 
-			// a view of the portion of this map whose keys are greater than (or equal to, if inclusive is true) fromKey.
-			// 3. So, if we take inclusive false and we keep the first element, we get the one that we want
-			selectedPopulation[i] = accumulatedProbabilities.tailMap(random.nextDouble(), false).firstEntry().getValue().clone();
+			order[i] = i;
+			keys[i] = population[i].score();
 		}
+		FlatPopulation.sortByKey(order, keys, 0, populationSize);
+		
+		for(int i = 0; i < populationSize; i++)
+			selectedPopulation[i] = population[order[aliasTable.sample(random)]].clone();
 		
 		return selectedPopulation;		
 	}
@@ -255,14 +576,12 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 	private Configuration[] tournamentSelection(Configuration[] population) {
 		
 		// Local variables
-		Random random;						// Random generator
 		int S;								// Selective pressure
 		
 		Configuration[] selectedPopulation; // New population to be returned
 		Configuration[] tournament;			// Individuals to be selected
 		
 		// Initialization
-		random = new Random();
 		S = 2; 
 		
 		selectedPopulation = new Configuration[populationSize];
@@ -283,7 +602,7 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 	}
 	
 	/* Cross the individuals in the selected population */
-	private void crossover(Configuration[] population) {
+	protected void crossover(Configuration[] population) {
 		
 		// Applies the corresponding crossover mechanism
 		switch(crossoverScheme) {
@@ -295,24 +614,40 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 			case BLX:
 				blxAlphaCrossover(population);
 				break;
+				
+			default:
+				permutationCrossover(population);
+				break;
 		}
+	}
+	
+	/* Apply one of the permutation crossovers (children are always valid tours) */
+	private void permutationCrossover(Configuration[] population) {
 		
-		// Simple arithmetical crossover
-		simpleArithmeticalCrossover(population);
+		// We apply crossover in consecutive pairs
+		for(int i = 0; i < population.length; i = i + 2) {
+			
+			// Children are initialize with the same values of the parents
+			Configuration c1 = population[i].clone();
+			Configuration c2 = population[i + 1].clone();
+			
+			// Each child takes the first parent's role in turn
+			permutationCrossover.cross(crossoverScheme, population[i].getValues(), population[i + 1].getValues(), c1.getValues());
+			permutationCrossover.cross(crossoverScheme, population[i + 1].getValues(), population[i].getValues(), c2.getValues());
+			
+			// We change the parents
+			population[i] = c1;
+			population[i + 1] = c2;
+		}
 	}
 	
 	/* Apply the simple arithmetical crossover operation */
 	private void simpleArithmeticalCrossover(Configuration[] population) {
 		
 		// Local variables
-		Random random;
-		
 		int k;
 		double alpha;
 		
-		// Initialization
-		random = new Random();
-
 		// Random value from 0(inclusive) to problem size(exclusive) for k
 		k = random.nextInt(problem.size());		
 		
@@ -343,15 +678,12 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 	private void blxAlphaCrossover(Configuration[] population) {
 		
 		// Local variables
-		Random random;
-		
 		double alpha;	// Alpha value
 		double max;		// Maximum value between two parents
 		double min;		// Minimum value between two parents
 		double l;		// Difference between maximum and minimum
 		
 		// Initialization
-		random = new Random();
 		alpha = random.nextDouble();		
 		
 		// We apply crossover in consecutive pairs
@@ -377,7 +709,7 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 	}
 	
 	/* Apply mutation over the crossover population */
-	private void mutation(Configuration[] population) {
+	protected void mutation(Configuration[] population) {
 		
 		// Local variables
 		final double mutationProbability = 0.1;
@@ -386,21 +718,19 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 		for(Configuration individual : population) {
 			
 			// Get a random double to show if mutation is going to be applied
-			Random random = new Random();
 			double randomProbability = random.nextDouble();
 			
 			// Mutation must be applied
 			if(randomProbability < mutationProbability) {
 				
-				// Generates a random index to be mutated
-				int index = random.nextInt(problem.size());
-				individual.getValues()[index] = random.nextInt(index);
+				// Swaps two random positions, so that permutations remain valid
+				individual.swap(random.nextInt(problem.size()), random.nextInt(problem.size()));
 			}
 		}
 	}
 	
 	/* Combine both population, depending on the selected scheme */
-	private Configuration[] combine(Configuration[] originalPopulation, Configuration[] newPopulation) {
+	protected Configuration[] combine(Configuration[] originalPopulation, Configuration[] newPopulation) {
 		
 		switch(replacementScheme) {
 			
@@ -472,6 +802,7 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 	/* Stop criterion */
 	private boolean stopCriterion(int generation) {
 		
+		metrics.setGeneration(generation);
 		switch(stopCriterion) {
 		
 			case STANDSTILL:
@@ -480,9 +811,9 @@ public class GeneticAlgorithm extends OptimizationAlgorithm {
 			case GENERATIONS:
 				return generationsStopCriterion(generation);
 			
-			// Never reach statement
+			// Budgets are checked by isStopRequested()
 			default:
-				return true;
+				return false;
 		}
 	}
 	
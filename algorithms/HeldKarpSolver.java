@@ -0,0 +1,311 @@
+package algorithms;
+
+/* Imported packages from Java */
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/* Imported packages within the project */
+import optimization.Configuration;
+import optimization.OptimizationAlgorithm;
+import optimization.ProblemMetric;
+
+/**
+ * Exact solver for small instances (Held-Karp dynamic programming). The length of the
+ * shortest path that begins at the agent, visits the cities of a subset S and ends at the
+ * city j of S is the minimum, over the other cities i of S, of that of S-{j} ending at i
+ * plus d(i, j). Subsets are processed by size: the table of each size is built from the
+ * previous one, split among threads (the entries of a subset only depend on the previous
+ * table), and only these two tables are kept.
+ *
+ * The subsets of each size are numbered in colexicographic order (combinatorial number
+ * system), so the tables have no gaps: the entries of a subset of size k are stored at
+ * rank*k..rank*k+k-1, one per city of the subset. Lengths are floats (4 bytes per entry,
+ * so the tour is optimal up to a relative error of about 1e-6), and the previous city of
+ * every entry is kept in one byte to rebuild the path. With n cities, the tables of all
+ * the sizes take n*2^(n-1) bytes, plus the floats of the two largest consecutive sizes:
+ * about 1 GB for 25 cities.
+ *
+ * Requires a problem that implements ProblemMetric. Parameters: number of threads
+ * (default: all the processors).
+ */
+public class HeldKarpSolver extends OptimizationAlgorithm {
+
+	/* Parameters */
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/* Instance */
+	private int n;
+	private float[] dist;							// Distance from city i to city j at i*n+j
+	private float[] fromAgent, toExit;
+	private int[][] binomial;						// binomial[a][b] = C(a, b)
+
+	/* Tables */
+	private float[] previous, current;				// Lengths of the subsets of sizes k-1 and k
+	private byte[][] parent;						// Position of the previous city in S-{j}, per size
+	private long states;
+
+	private static final int MAX_CITIES = 28;		// The entries of each size must fit in an int
+	private static final int TASK_SUBSETS = 2048;	// Subsets processed sequentially by each task
+
+	@Override
+	public void search() {
+
+		// Algorithms must call this function always!
+		initSearch();
+
+		if(!(problem instanceof ProblemMetric)) {
+
+			System.out.println("HeldKarpSolver requires a problem with distances between nodes (ProblemMetric).");
+			stopSearch();
+			return;
+		}
+		n = problem.size();
+		if(n > MAX_CITIES || memoryNeeded() > Runtime.getRuntime().maxMemory()) {
+
+			System.out.println("HeldKarpSolver can't solve " + n + " cities: it would need " + (memoryNeeded() >> 20) + " MB.");
+			stopSearch();
+			return;
+		}
+
+		int[] path = solve();
+		if(path != null)
+			evaluate(new Configuration(path));
+		else {
+
+			// Stopped before the tables were complete: the best configuration is an initial one
+			System.out.println("HeldKarpSolver was stopped before finding the optimal path.");
+			evaluate(initialConfiguration());
+		}
+		previous = current = null;
+		parent = null;
+
+		stopSearch();
+	}
+
+	/* Builds the tables and returns the optimal path (null if the search has to stop before) */
+	private int[] solve() {
+
+		ProblemMetric metric = (ProblemMetric) problem;
+		int agent = n, exit = n + 1;
+		if(n == 0)
+			return new int[0];
+
+		// Distances
+		dist = new float[n * n];
+		fromAgent = new float[n];
+		toExit = new float[n];
+		for(int i = 0; i < n; i++) {
+
+			fromAgent[i] = (float) metric.distance(agent, i);
+			toExit[i] = (float) metric.distance(i, exit);
+			for(int j = 0; j < n; j++)
+				dist[i * n + j] = (float) metric.distance(i, j);
+		}
+		binomial = new int[n + 1][n + 2];
+		for(int a = 0; a <= n; a++) {
+
+			binomial[a][0] = 1;
+			for(int b = 1; b <= a; b++)
+				binomial[a][b] = binomial[a - 1][b - 1] + binomial[a - 1][b];
+		}
+
+		// Size 1: the rank of {j} is j
+		parent = new byte[n + 1][];
+		current = fromAgent.clone();
+		states = n;
+		ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+		try {
+
+			for(int k = 2; k <= n; k++) {
+
+				if(isStopRequested())
+					return null;
+				previous = current;
+				int subsets = binomial[n][k];
+				current = new float[subsets * k];
+				parent[k] = new byte[subsets * k];
+				LayerTask task = new LayerTask(k, 0, subsets);
+				if(pool != null)
+					pool.invoke(task);
+				else
+					task.compute();
+				states += (long) subsets * k;
+				metrics.setGeneration(k);
+			}
+		}
+		finally {
+
+			if(pool != null)
+				pool.shutdown();
+		}
+
+		// All the cities visited: the last one goes to the exit
+		int last = 0;
+		for(int j = 1; j < n; j++)
+			if(current[j] + toExit[j] < current[last] + toExit[last])
+				last = j;
+
+		// Follows the previous cities back to the first one
+		int[] path = new int[n];
+		int[] cities = new int[n];
+		int subset = (1 << n) - 1;
+		int position = last;
+		for(int k = n; k >= 1; k--) {
+
+			int count = 0;
+			for(int bits = subset; bits != 0; bits &= bits - 1)
+				cities[count++] = Integer.numberOfTrailingZeros(bits);
+			int city = cities[position];
+			path[k - 1] = city;
+			if(k > 1)
+				position = parent[k][rank(subset) * k + position];
+			subset &= ~(1 << city);
+		}
+		return path;
+	}
+
+	/* Fills the entries of the subsets of size k whose ranks are in [from, to) */
+	private void fillLayer(int k, int from, int to) {
+
+		int[] bits = new int[k];
+		int[] prefix = new int[k + 1];			// prefix[t]: rank of the first t cities (as a subset of size t)
+		int[] suffix = new int[k + 1];			// suffix[t]: rank contribution of the cities after t once one is removed
+		int subset = unrank(from, k);
+		for(int rank = from; rank < to; rank++) {
+
+			int count = 0;
+			for(int rest = subset; rest != 0; rest &= rest - 1)
+				bits[count++] = Integer.numberOfTrailingZeros(rest);
+			prefix[0] = 0;
+			for(int t = 0; t < k; t++)
+				prefix[t + 1] = prefix[t] + binomial[bits[t]][t + 1];
+			suffix[k - 1] = 0;
+			for(int t = k - 1; t > 0; t--)
+				suffix[t - 1] = suffix[t] + binomial[bits[t]][t];
+
+			for(int t = 0; t < k; t++) {
+
+				// Path through S-{j} ending at its u-th city (the cities of S but j), then to j
+				int j = bits[t];
+				int base = (prefix[t] + suffix[t]) * (k - 1);
+				float best = Float.POSITIVE_INFINITY;
+				int bestU = 0;
+				for(int u = 0; u < t; u++) {
+
+					float length = previous[base + u] + dist[bits[u] * n + j];
+					if(length < best) {
+
+						best = length;
+						bestU = u;
+					}
+				}
+				for(int u = t; u < k - 1; u++) {
+
+					float length = previous[base + u] + dist[bits[u + 1] * n + j];
+					if(length < best) {
+
+						best = length;
+						bestU = u;
+					}
+				}
+				current[rank * k + t] = best;
+				parent[k][rank * k + t] = (byte) bestU;
+			}
+
+			// Next subset of the same size (Gosper's hack), which has the next rank
+			int lowest = subset & -subset;
+			int ripple = subset + lowest;
+			subset = ripple | (((subset ^ ripple) >>> 2) / lowest);
+		}
+	}
+
+	/* Rank of a subset among those of its size, in colexicographic order */
+	private int rank(int subset) {
+
+		int rank = 0, t = 1;
+		for(int bits = subset; bits != 0; bits &= bits - 1)
+			rank += binomial[Integer.numberOfTrailingZeros(bits)][t++];
+		return rank;
+	}
+
+	/* Subset of size k with the given rank */
+	private int unrank(int rank, int k) {
+
+		int subset = 0;
+		int city = n - 1;
+		for(int t = k; t >= 1; t--) {
+
+			while(binomial[city][t] > rank)
+				city--;
+			subset |= 1 << city;
+			rank -= binomial[city][t];
+			city--;
+		}
+		return subset;
+	}
+
+	/* Bytes of the tables for the size of the problem */
+	private long memoryNeeded() {
+
+		if(n > MAX_CITIES)
+			return Long.MAX_VALUE;
+		long parents = (long) n << Math.max(0, n - 1);
+		long floats = 0, subsets = n;
+		for(int k = 2; k <= n; k++) {
+
+			long next = subsets * (n - k + 1) / k;
+			floats = Math.max(floats, subsets * (k - 1) + next * k);
+			subsets = next;
+		}
+		return parents + 4 * floats;
+	}
+
+	/** Fork-join task that fills the entries of a range of subsets, splitting it in halves. */
+	private class LayerTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int k, from, to;
+
+		LayerTask(int k, int from, int to) {
+
+			this.k = k;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			if(to - from <= TASK_SUBSETS) {
+
+				fillLayer(k, from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new LayerTask(k, from, middle), new LayerTask(k, middle, to));
+		}
+	}
+
+	/** Displays the statistics of the search. */
+	@Override
+	public void showAlgorithmStats() {
+
+		System.out.println("Entries of the tables: " + states + " (" + (memoryNeeded() >> 20) + " MB)");
+	}
+
+	/** Parameters: number of threads (default: all the processors). */
+	@Override
+	public void setParams(String[] args) {
+
+		try {
+
+			if(args.length > 0)
+				threads = Math.max(1, Integer.parseInt(args[0]));
+		} catch(Exception ex) {
+
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+		System.out.println("Using the following configuration: threads = " + threads);
+	}
+}
@@ -3,6 +3,8 @@ import optimization.OptimizationAlgorithm;
 import optimization.Configuration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Random;
+import utils.RandomStreams;
 
 public class HillClimbing extends OptimizationAlgorithm {
 	
@@ -16,8 +18,8 @@ public class HillClimbing extends OptimizationAlgorithm {
 		// Initiates the selection parameters
 		initSearch();
 		
-		// We apply hill climbing generating one random configuration
-		applyHillClimbling(problem.genRandomConfiguration());
+		// We apply hill climbing to an initial configuration (random by default)
+		applyHillClimbling(initialConfiguration());
 	
 		// Stop the search
 		stopSearch();
@@ -34,13 +36,15 @@ public class HillClimbing extends OptimizationAlgorithm {
 		evaluate(currentSolution);
 		improves = true;
 		
-		while(improves) {
+		while(improves && !isStopRequested()) {
 			
 			improves = false;
 			
 			// Generates neighbor of best solution
 			for(Configuration neighbor : generateNeighborhood(currentSolution)) {
 				
+				if(isStopRequested())
+					break;
 				double score = evaluate(neighbor);
 				
 				// After evaluating, if best solution and score are equal is because we have improved it
@@ -67,6 +71,7 @@ public class HillClimbing extends OptimizationAlgorithm {
 		double step;
 		int[] params;
 		
+		Random random = RandomStreams.current();
 		neighbors = new ArrayList<Configuration>(); 
 		
 		for (int i = 0; i < problem.size(); i++) {
@@ -78,8 +83,8 @@ public class HillClimbing extends OptimizationAlgorithm {
 			// Copy of the original configuration values
 			params = Arrays.copyOf(configuration.getValues(), problem.size());
 			
-			x1 = (int) ((int) (configuration.getValues().length) * Math.random());
-			x2 = (int) ((int) (configuration.getValues().length) * Math.random());
+			x1 = (int) ((int) (configuration.getValues().length) * random.nextDouble());
+			x2 = (int) ((int) (configuration.getValues().length) * random.nextDouble());
 			
 			// We establish the neighbors values
 			params[i] = (int) Math.min(configuration.getValues()[i] + x1 * step, max);
@@ -0,0 +1,240 @@
+package algorithms;
+
+/* Imported packages from Java */
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Imported packages within the project */
+import optimization.Configuration;
+import optimization.OptimizationAlgorithm;
+
+/**
+ * Island model of the genetic algorithm. Several populations (islands) evolve in parallel,
+ * each one in its own thread and with its own selection, crossover and replacement schemes.
+ * Every few generations, each island sends copies of its best individuals to another island
+ * (the next one in a ring, or a random one), which replace its worst individuals. Migrants
+ * travel through lock-free queues, so islands never wait for each other.
+ *
+ * Parameters: islands, migration interval, migrants, topology, flat representation (0/1), and
+ * then groups of 6 GeneticAlgorithm parameters (population size, selection, crossover,
+ * replacement, stop criterion and its value), one per island. If there are fewer groups
+ * than islands, the groups are reused in order.
+ */
+public class IslandGeneticAlgorithm extends OptimizationAlgorithm {
+	
+	/* Parameters */
+	private int numIslands;							// Number of islands (threads)
+	private int migrationInterval;					// Generations between migrations
+	private int numMigrants;						// Individuals sent in each migration
+	private MigrationTopology topology;				// Destination of the migrants
+	private boolean flatRepresentation;				// Islands use the flat representation of the population
+	private String[][] islandParams;				// GeneticAlgorithm parameters of each group
+	
+	private static final int GROUP_SIZE = 6;		// Parameters of each group
+	private static final long POLL_INTERVAL = 100;	// Milliseconds between updates of the global results
+	
+	/* Islands and the queues where they receive the migrants */
+	private Island[] islands;
+	private ConcurrentLinkedQueue<Configuration>[] inboxes;
+	private final AtomicLong migrations = new AtomicLong();
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public void search() {
+		
+		// Local variables
+		Thread[] threads;
+		boolean running;
+		
+		// Starts the search
+		initSearch();
+		migrations.set(0);
+		
+		// Creates the islands
+		islands = new Island[numIslands];
+		inboxes = (ConcurrentLinkedQueue<Configuration>[]) new ConcurrentLinkedQueue<?>[numIslands];
+		threads = new Thread[numIslands];
+		for(int i = 0; i < numIslands; i++) {
+			
+			System.out.print("Island " + i + ". ");
+			inboxes[i] = new ConcurrentLinkedQueue<Configuration>();
+			islands[i] = new Island(i, islandParams[i % islandParams.length]);
+			islands[i].setProblem(problem);
+			islands[i].setInitializer(initializer);
+			threads[i] = new Thread(islands[i]::run, "island-" + i);
+		}
+		
+		for(Thread thread : threads)
+			thread.start();
+		
+		// Waits for the islands, collecting their results from time to time
+		running = true;
+		while(running) {
+			
+			running = false;
+			for(Thread thread : threads) {
+				
+				try {
+					
+					thread.join(POLL_INTERVAL);
+				} catch(InterruptedException ex) {
+					
+					Thread.currentThread().interrupt();
+					return;
+				}
+				running |= thread.isAlive();
+			}
+			collectResults();
+			
+			// The budget of the search applies to all the islands together
+			if(running && isStopRequested())
+				for(Island island : islands)
+					island.requestStop("stopped by the island model");
+		}
+		
+		// Finish the search
+		stopSearch();
+	}
+	
+	/* Updates the number of evaluations, the best solution and the generation with those of the islands */
+	private void collectResults() {
+		
+		long evaluations = 0;
+		int generation = 0;
+		
+		for(Island island : islands) {
+			
+			evaluations += island.evaluations();
+			generation = Math.max(generation, island.generation());
+			Configuration best = island.getBestSolution();
+			if(best != null)
+				updateBest(best, best.score());
+		}
+		evaluatedConfigurations.set(evaluations);
+		metrics.setGeneration(generation);
+	}
+	
+	@Override
+	public void showAlgorithmStats() {
+		
+		for(int i = 0; i < numIslands; i++)
+			System.out.println("Island " + i + ": best score = " + islands[i].best() + ", generations = " + islands[i].generation());
+		System.out.println("Migrations: " + migrations);
+	}
+	
+	@Override
+	public void setParams(String[] args) {
+		
+		try {
+			
+			numIslands = Math.max(1, Integer.parseInt(args[0]));
+			migrationInterval = Math.max(1, Integer.parseInt(args[1]));
+			numMigrants = Math.max(0, Integer.parseInt(args[2]));
+			topology = MigrationTopology.values()[Integer.parseInt(args[3])];
+			flatRepresentation = Integer.parseInt(args[4]) == 1;
+			
+			int numGroups = (args.length - 5) / GROUP_SIZE;
+			if(numGroups == 0)
+				throw new IllegalArgumentException();
+			islandParams = new String[numGroups][];
+			for(int i = 0; i < numGroups; i++)
+				islandParams[i] = Arrays.copyOfRange(args, 5 + i * GROUP_SIZE, 5 + (i + 1) * GROUP_SIZE);
+		} catch(Exception ex) {
+			
+			numIslands = Runtime.getRuntime().availableProcessors();
+			migrationInterval = 10;
+			numMigrants = 2;
+			topology = MigrationTopology.RING;
+			flatRepresentation = true;
+			islandParams = new String[][] { { "100", "2", "2", "1", "0", "1000" } };
+		}
+		
+		System.out.println("Using the following configuration: Islands = " + numIslands + ", Migration interval = " + migrationInterval + ", Migrants = " + numMigrants + ", Topology = " + topology + ", Flat representation = " + flatRepresentation);
+	}
+	
+	/* A population that evolves in its own thread and exchanges migrants with the others */
+	private class Island extends GeneticAlgorithm {
+		
+		private final int index;					// Index of the island
+		
+		Island(int index, String[] params) {
+			
+			this.index = index;
+			setParams(flatRepresentation ? append(params, "1", "1") : params);
+		}
+		
+		/* Runs the genetic algorithm */
+		void run() {
+			
+			try {
+				
+				search();
+			} catch(RuntimeException ex) {
+				
+				System.out.println("Island " + index + " has stopped: " + ex);
+			}
+		}
+		
+		@Override
+		protected void exchange(Configuration[] population) {
+			
+			if(generation % migrationInterval != 0)
+				return;
+			
+			// Sends copies of the best individuals, and the received ones replace the worst individuals
+			destination().addAll(Arrays.asList(emigrants(population, numMigrants)));
+			migrations.incrementAndGet();
+			Configuration migrant;
+			while((migrant = inboxes[index].poll()) != null)
+				immigrate(population, migrant);
+		}
+		
+		@Override
+		protected void exchange(FlatPopulation population) {
+			
+			if(generation % migrationInterval != 0)
+				return;
+			
+			destination().addAll(Arrays.asList(emigrants(population, numMigrants)));
+			migrations.incrementAndGet();
+			Configuration migrant;
+			while((migrant = inboxes[index].poll()) != null)
+				immigrate(population, migrant);
+		}
+		
+		/* Queue of the island that receives the migrants */
+		private ConcurrentLinkedQueue<Configuration> destination() {
+			
+			if(numIslands == 1)
+				return inboxes[index];
+			if(topology == MigrationTopology.RING)
+				return inboxes[(index + 1) % numIslands];
+			int other = random.nextInt(numIslands - 1);
+			return inboxes[other >= index ? other + 1 : other];
+		}
+		
+		long evaluations() {
+			
+			return evaluatedConfigurations.get();
+		}
+		
+		int generation() {
+			
+			return generation;
+		}
+		
+		double best() {
+			
+			return bestScore;
+		}
+	}
+	
+	/* Appends values to an array of parameters */
+	private static String[] append(String[] params, String... values) {
+		
+		String[] result = Arrays.copyOf(params, params.length + values.length);
+		System.arraycopy(values, 0, result, params.length, values.length);
+		return result;
+	}
+}
@@ -0,0 +1,269 @@
+package algorithms;
+
+/* Imported packages from Java */
+import java.util.List;
+import java.util.Random;
+
+/* Imported packages within the project */
+import optimization.Configuration;
+import utils.RandomStreams;
+
+/**
+ * Lin-Kernighan local search. Each move is a sequential k-opt move built as a chain of
+ * 2-opt flips: an edge (t1, t2) is removed, an edge (t2, t3) to a candidate neighbour is
+ * added, and the tour is closed again removing (t4, t3) and adding (t4, t1). The chain
+ * goes on from t4 while the partial gain is positive, up to a maximum depth, and the
+ * move is accepted as soon as closing the tour improves it. The first levels try several
+ * alternatives (backtracking); deeper levels only the most promising one.
+ *
+ * Optionally, the local optimum is perturbed with double-bridge kicks (iterated LK),
+ * keeping the best tour found.
+ */
+public class LinKernighan extends LocalSearch {
+
+	/* Parameters */
+	protected int maxDepth = 50;					// Maximum number of flips of a move
+	protected int kicks = 0;						// Double-bridge kicks (iterated LK)
+	protected static final int[] BREADTH = {5, 3};	// Alternatives tried at the first levels (1 afterwards)
+
+	/* Flips of the move being built: each one removed (t1, t2), (t4, t3) and added (t1, t4), (t2, t3) */
+	private int[] flipT2, flipT3, flipT4;
+	private int numFlips;
+
+	/* Candidates of each level, ordered by the gain they would leave (t3, t4, lookahead) */
+	private int[][] candidateT3, candidateT4;
+	private double[][] candidateValue;
+
+	private static final double EPSILON = 1e-9;
+
+	/** Improves the configuration until it is a local optimum for LK (and Or-opt). */
+	@Override
+	public Configuration improve(Configuration configuration, List<Integer> nodes) {
+
+		flipT2 = new int[maxDepth];
+		flipT3 = new int[maxDepth];
+		flipT4 = new int[maxDepth];
+		candidateT3 = new int[BREADTH.length][];
+		candidateT4 = new int[BREADTH.length][];
+		candidateValue = new double[BREADTH.length][];
+		for(int level = 0; level < BREADTH.length; level++) {
+
+			candidateT3[level] = new int[BREADTH[level]];
+			candidateT4[level] = new int[BREADTH[level]];
+			candidateValue[level] = new double[BREADTH[level]];
+		}
+
+		initTour(configuration.getValues(), nodes);
+		localOptimum();
+
+		if(kicks > 0)
+			iteratedSearch(configuration.getValues());
+
+		return finish(configuration);
+	}
+
+	/* Tries an LK move from t1 and, if none improves, an Or-opt move */
+	@Override
+	protected boolean improveNode(int t1) {
+
+		return improveLK(t1) || improveOrOpt(t1);
+	}
+
+	/* Looks for an improving sequential move that begins removing one of the edges of t1 */
+	private boolean improveLK(int t1) {
+
+		for(int direction = 0; direction < 2; direction++) {
+
+			int t2 = direction == 0 ? tour.succ(t1) : tour.pred(t1);
+			if(tour.isFixed(t1, t2))
+				continue;
+
+			numFlips = 0;
+			if(step(0, tour.cost(t1, t2), t1, t2)) {
+
+				// Every endpoint of the move must be examined again
+				push(t1);
+				for(int i = 0; i < numFlips; i++) {
+
+					push(flipT2[i]);
+					push(flipT3[i]);
+					push(flipT4[i]);
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * One level of the move. gain is the total length of the removed edges minus the added ones,
+	 * without counting the edge (t1, t2) that closes the tour. Returns true if an improving move
+	 * has been found (its flips remain applied); otherwise the tour is left unchanged.
+	 */
+	private boolean step(int level, double gain, int t1, int t2) {
+
+		boolean forward = tour.succ(t1) == t2;
+		int breadth = level < BREADTH.length ? BREADTH[level] : 1;
+		int[] bestT3 = level < BREADTH.length ? candidateT3[level] : null;
+		int[] bestT4 = level < BREADTH.length ? candidateT4[level] : null;
+		double[] bestValue = level < BREADTH.length ? candidateValue[level] : null;
+		int numCandidates = 0;
+		int singleT3 = -1, singleT4 = -1;
+		double singleValue = Double.NEGATIVE_INFINITY;
+
+		// Candidates (t3, t4), ordered by g1 + |t3 t4| (the gain after removing (t4, t3))
+		for(int j = 0; j < k; j++) {
+
+			int t3 = neighbors[t2 * k + j];
+			double g1 = gain - tour.cost(t2, t3);
+			if(g1 <= EPSILON)
+				break;
+
+			int t4 = forward ? tour.pred(t3) : tour.succ(t3);
+			if(t3 == t1 || t4 == t2 || tour.isFixed(t3, t4) || wasAdded(t3, t4))
+				continue;
+
+			movesEvaluated++;
+			double value = g1 + tour.cost(t4, t3);
+			if(breadth == 1) {
+
+				if(value > singleValue) {
+
+					singleValue = value;
+					singleT3 = t3;
+					singleT4 = t4;
+				}
+				continue;
+			}
+
+			// Insertion in the (small) sorted list of the best alternatives
+			int i = Math.min(numCandidates, breadth - 1);
+			if(numCandidates == breadth && value <= bestValue[i])
+				continue;
+			while(i > 0 && bestValue[i - 1] < value) {
+
+				bestT3[i] = bestT3[i - 1];
+				bestT4[i] = bestT4[i - 1];
+				bestValue[i] = bestValue[i - 1];
+				i--;
+			}
+			bestT3[i] = t3;
+			bestT4[i] = t4;
+			bestValue[i] = value;
+			if(numCandidates < breadth)
+				numCandidates++;
+		}
+
+		if(breadth == 1 && singleT3 != -1)
+			return tryFlip(level, gain, t1, t2, singleT3, singleT4);
+
+		for(int c = 0; c < numCandidates; c++)
+			if(tryFlip(level, gain, t1, t2, bestT3[c], bestT4[c]))
+				return true;
+
+		return false;
+	}
+
+	/* Applies a flip and either closes the move (if it improves) or goes deeper; undoes it otherwise */
+	private boolean tryFlip(int level, double gain, int t1, int t2, int t3, int t4) {
+
+		double g = gain - tour.cost(t2, t3) + tour.cost(t4, t3);
+		tour.make2OptMove(t1, t2, t4, t3);
+		flipT2[numFlips] = t2;
+		flipT3[numFlips] = t3;
+		flipT4[numFlips] = t4;
+		numFlips++;
+
+		if(g - tour.cost(t4, t1) > EPSILON)
+			return true;
+		if(level + 1 < maxDepth && step(level + 1, g, t1, t4))
+			return true;
+
+		// Undo: removes (t1, t4), (t2, t3) and adds (t1, t2), (t4, t3) again
+		numFlips--;
+		tour.make2OptMove(t1, t4, t2, t3);
+		return false;
+	}
+
+	/* Whether (a, b) is one of the edges added by the current move */
+	private boolean wasAdded(int a, int b) {
+
+		for(int i = 0; i < numFlips; i++)
+			if((flipT2[i] == a && flipT3[i] == b) || (flipT2[i] == b && flipT3[i] == a))
+				return true;
+		return false;
+	}
+
+	/* Iterated LK: perturbs the local optimum with double-bridge kicks and keeps the best tour */
+	private void iteratedSearch(int[] values) {
+
+		Random random = RandomStreams.current();
+		int size = values.length;
+		int[] best = new int[size];
+		int[] current = new int[size];
+		tour.toValues(best);
+		double bestLength = tour.length();
+
+		for(int kick = 0; kick < kicks && size >= 8 && !isStopRequested(); kick++) {
+
+			// Double bridge A B C D -> A C B D over a random window of the path
+			tour.toValues(current);
+			int window = Math.min(size, 100);
+			int start = random.nextInt(size - window + 1);
+			int p1 = start + 1 + random.nextInt(window - 3);
+			int p2 = p1 + 1 + random.nextInt(start + window - p1 - 2);
+			int p3 = p2 + 1 + random.nextInt(start + window - p2 - 1);
+			System.arraycopy(best, p2, current, p1, p3 - p2);
+			System.arraycopy(best, p1, current, p1 + p3 - p2, p2 - p1);
+			tour.setValues(current);
+			push(best[p1 - 1]);
+			push(best[p1]);
+			push(best[p2 - 1]);
+			push(best[p2]);
+			push(best[p3 - 1]);
+			if(p3 < size)
+				push(best[p3]);
+
+			localOptimum();
+
+			double length = tour.length();
+			if(length < bestLength - EPSILON) {
+
+				bestLength = length;
+				tour.toValues(best);
+			}
+			else
+				tour.setValues(best);
+		}
+		tour.setValues(best);
+	}
+
+	/** Displays the statistics of the search. */
+	@Override
+	public void showAlgorithmStats() {
+
+		System.out.println("Improving moves applied: " + improvements);
+	}
+
+	/** Parameters: length of the candidate lists, maximum depth of a move and number of kicks. */
+	@Override
+	public void setParams(String[] args) {
+
+		try {
+
+			numNeighbors = 8;
+			if(args.length > 0)
+				numNeighbors = Integer.parseInt(args[0]);
+			if(args.length > 1)
+				maxDepth = Integer.parseInt(args[1]);
+			if(args.length > 2)
+				kicks = Integer.parseInt(args[2]);
+		} catch(Exception ex) {
+
+			numNeighbors = 8;
+			maxDepth = 50;
+			kicks = 0;
+		}
+		System.out.println("Using the following configuration: neighbors = " + numNeighbors + ", maximum depth = " + maxDepth + ", kicks = " + kicks);
+	}
+}
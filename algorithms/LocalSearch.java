@@ -0,0 +1,317 @@
+package algorithms;
+
+/* Imported packages from Java */
+import java.util.List;
+
+/* Imported packages within the project */
+import optimization.Configuration;
+import optimization.OptimizationAlgorithm;
+import optimization.ProblemMetric;
+
+/**
+ * First-improvement local search with 2-opt and Or-opt moves. Only the candidate lists
+ * (nearest neighbours) of each node are explored, and don't-look bits keep a queue of
+ * the nodes whose surroundings have changed, so that only they are examined again.
+ * Requires a problem that implements ProblemMetric.
+ */
+public class LocalSearch extends OptimizationAlgorithm {
+
+	/* Parameters */
+	protected int numNeighbors = 10;			// Length of the candidate lists
+	protected int maxSegment = 3;			// Maximum length of the segments moved by Or-opt
+
+	/* Search state */
+	protected ProblemMetric metric;
+	protected Tour tour;
+	protected int[] neighbors;				// Candidate lists
+	protected int k;						// Actual length of each candidate list
+	private int[] queue;					// Nodes to be examined (circular queue)
+	private boolean[] queued;				// Don't-look bits (negated)
+	private int head, queueSize;
+	protected long movesEvaluated;			// Moves whose gain has been computed
+	protected int improvements;				// Moves applied
+
+	private static final double EPSILON = 1e-9;
+
+	@Override
+	public void search() {
+
+		// Algorithms must call this function always!
+		initSearch();
+
+		if(!(problem instanceof ProblemMetric)) {
+
+			System.out.println("LocalSearch requires a problem with distances between nodes (ProblemMetric).");
+			stopSearch();
+			return;
+		}
+
+		Configuration configuration = initialConfiguration();
+		evaluate(configuration);
+		improve(configuration);
+
+		stopSearch();
+	}
+
+	/**
+	 * Warm start: re-optimizes a configuration that was a good solution before the problem
+	 * changed slightly (e.g. one repaired by TSP.repairConfiguration()). Only the nodes
+	 * given are examined at first, so the time depends on the size of the change.
+	 */
+	public Configuration reoptimize(Configuration configuration, List<Integer> changedNodes) {
+
+		initSearch();
+		if(problem instanceof ProblemMetric)
+			improve(configuration, changedNodes);
+		else
+			System.out.println("LocalSearch requires a problem with distances between nodes (ProblemMetric).");
+		stopSearch();
+		return configuration;
+	}
+
+	/** Improves the configuration until it is a local optimum for 2-opt and Or-opt. */
+	public Configuration improve(Configuration configuration) {
+
+		return improve(configuration, null);
+	}
+
+	/** Same as improve(), but only the nodes given (all of them if null) are examined at first. */
+	public Configuration improve(Configuration configuration, List<Integer> nodes) {
+
+		initTour(configuration.getValues(), nodes);
+		localOptimum();
+		return finish(configuration);
+	}
+
+	/* Builds the tour and the candidate lists, and queues the nodes given (all of them, in tour order, if null) */
+	protected void initTour(int[] values, List<Integer> nodes) {
+
+		metric = (ProblemMetric) problem;
+		neighbors = metric.getNeighbors(numNeighbors);
+		k = neighbors.length / (problem.size() + 2);
+		tour = new Tour(metric, values);
+		movesEvaluated = 0;
+		improvements = 0;
+
+		int numNodes = tour.numNodes();
+		queue = new int[numNodes];
+		queued = new boolean[numNodes];
+		head = 0;
+		queueSize = 0;
+		if(nodes != null) {
+
+			for(int node : nodes)
+				push(node);
+			return;
+		}
+		int node = tour.succ(problem.size());
+		for(int i = 0; i < numNodes; i++) {
+
+			push(node);
+			node = tour.succ(node);
+		}
+	}
+
+	/* Examines the queued nodes until none of them can be improved (or the search has to stop) */
+	protected void localOptimum() {
+
+		while(queueSize > 0 && !isStopRequested()) {
+
+			int t1 = pop();
+			if(improveNode(t1)) {
+
+				improvements++;
+				push(t1);
+			}
+		}
+	}
+
+	/* Tries to improve the tour around a node. The nodes affected by a move must be queued */
+	protected boolean improveNode(int t1) {
+
+		return improve2Opt(t1) || improveOrOpt(t1);
+	}
+
+	/* Writes the tour in the configuration and evaluates it */
+	protected Configuration finish(Configuration configuration) {
+
+		tour.toValues(configuration.getValues());
+		deltaEvaluations.add(movesEvaluated);
+		evaluate(configuration);
+		return configuration;
+	}
+
+	/* Tries the 2-opt moves that remove an edge of t1; applies the first one that improves */
+	protected boolean improve2Opt(int t1) {
+
+		for(int direction = 0; direction < 2; direction++) {
+
+			int t2 = direction == 0 ? tour.succ(t1) : tour.pred(t1);
+			if(tour.isFixed(t1, t2))
+				continue;
+			double removed = tour.cost(t1, t2);
+
+			for(int j = 0; j < k; j++) {
+
+				int t3 = neighbors[t2 * k + j];
+				double g1 = removed - tour.cost(t2, t3);
+				if(g1 <= EPSILON)
+					break;
+
+				// (t4, t3) is the edge whose removal closes the move with (t2, t3) and (t1, t4)
+				int t4 = direction == 0 ? tour.pred(t3) : tour.succ(t3);
+				if(t3 == t1 || t4 == t2 || tour.isFixed(t3, t4))
+					continue;
+
+				movesEvaluated++;
+				double gain = g1 + tour.cost(t4, t3) - tour.cost(t4, t1);
+				if(gain > EPSILON) {
+
+					tour.make2OptMove(t1, t2, t4, t3);
+					push(t2);
+					push(t3);
+					push(t4);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/* Tries to move the segments that begin at s1 (of up to maxSegment nodes) next to a neighbour */
+	protected boolean improveOrOpt(int s1) {
+
+		for(int direction = 0; direction < 2; direction++) {
+
+			int p = direction == 0 ? tour.pred(s1) : tour.succ(s1);
+			int s2 = s1;
+			for(int length = 1; length <= maxSegment; length++) {
+
+				if(length > 1)
+					s2 = direction == 0 ? tour.succ(s2) : tour.pred(s2);
+				int nx = direction == 0 ? tour.succ(s2) : tour.pred(s2);
+				if(s2 == p || nx == p || nx == s1)
+					break;
+				if(tour.isFixed(p, s1) || tour.isFixed(s2, nx))
+					continue;
+
+				double g1 = tour.cost(p, s1) + tour.cost(s2, nx) - tour.cost(p, nx);
+				if(g1 <= EPSILON)
+					continue;
+
+				// Insertion between c (a neighbour of one end of the segment) and one of its adjacent nodes
+				for(int end = 0; end < 2; end++) {
+
+					int s = end == 0 ? s1 : s2;
+					for(int j = 0; j < k; j++) {
+
+						int c = neighbors[s * k + j];
+						if(tour.cost(s, c) >= g1)
+							break;
+						if(inSegment(c, s1, length, direction))
+							continue;
+
+						for(int side = 0; side < 2; side++) {
+
+							// (a, b) is an edge of the tour with b = succ(a) in the direction of the segment
+							int a = side == 0 ? c : (direction == 0 ? tour.pred(c) : tour.succ(c));
+							int b = direction == 0 ? tour.succ(a) : tour.pred(a);
+							if(a == p || b == p || inSegment(a, s1, length, direction) || inSegment(b, s1, length, direction) || tour.isFixed(a, b))
+								continue;
+
+							movesEvaluated++;
+							double removed = g1 + tour.cost(a, b);
+							double same = tour.cost(a, s1) + tour.cost(s2, b);
+							double reversed = tour.cost(a, s2) + tour.cost(s1, b);
+							if(removed - Math.min(same, reversed) > EPSILON) {
+
+								moveSegment(p, s1, s2, nx, a, b, same <= reversed);
+								push(p);
+								push(s2);
+								push(nx);
+								push(a);
+								push(b);
+								return true;
+							}
+						}
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/* Whether node is in the segment of the given length that begins at s1 */
+	private boolean inSegment(int node, int s1, int length, int direction) {
+
+		int current = s1;
+		for(int i = 0; i < length; i++) {
+
+			if(current == node)
+				return true;
+			current = direction == 0 ? tour.succ(current) : tour.pred(current);
+		}
+		return false;
+	}
+
+	/*
+	 * Moves the segment s1..s2 (between p and nx) between a and b, as a sequence of 2-opt moves.
+	 * The segment keeps its orientation (a, s1 ... s2, b) or is reversed (a, s2 ... s1, b).
+	 */
+	private void moveSegment(int p, int s1, int s2, int nx, int a, int b, boolean keepOrientation) {
+
+		// p a ... nx s2..s1 b
+		tour.make2OptMove(p, s1, a, b);
+		// p nx ... a s2..s1 b
+		if(a != nx)
+			tour.make2OptMove(p, a, nx, s2);
+		// p nx ... a s1..s2 b
+		if(keepOrientation && s1 != s2)
+			tour.make2OptMove(a, s2, s1, b);
+	}
+
+	/* Adds a node to the queue, unless it is already there */
+	protected void push(int node) {
+
+		if(queued[node])
+			return;
+		queued[node] = true;
+		int tail = head + queueSize++;
+		queue[tail >= queue.length ? tail - queue.length : tail] = node;
+	}
+
+	/* Takes the first node of the queue */
+	private int pop() {
+
+		int node = queue[head];
+		head = head + 1 == queue.length ? 0 : head + 1;
+		queueSize--;
+		queued[node] = false;
+		return node;
+	}
+
+	/** Displays the statistics of the search. */
+	@Override
+	public void showAlgorithmStats() {
+
+		System.out.println("Improving moves applied: " + improvements);
+	}
+
+	/** Parameters: length of the candidate lists and maximum length of the Or-opt segments. */
+	@Override
+	public void setParams(String[] args) {
+
+		try {
+
+			if(args.length > 0)
+				numNeighbors = Integer.parseInt(args[0]);
+			if(args.length > 1)
+				maxSegment = Integer.parseInt(args[1]);
+		} catch(Exception ex) {
+
+			numNeighbors = 10;
+			maxSegment = 3;
+		}
+		System.out.println("Using the following configuration: neighbors = " + numNeighbors + ", maximum Or-opt segment = " + maxSegment);
+	}
+}
@@ -0,0 +1,7 @@
+package algorithms;
+
+public enum MigrationTopology {
+
+	RING,
+	RANDOM;
+}
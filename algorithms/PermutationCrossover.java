@@ -0,0 +1,534 @@
+package algorithms;
+
+/* Imported packages from Java */
+import java.util.Random;
+
+/* Imported packages within the project */
+import optimization.ProblemMetric;
+
+/**
+ * Crossover operators that always generate valid permutations: order crossover (OX),
+ * partially mapped crossover (PMX), edge recombination (ERX) and edge assembly (EAX).
+ *
+ * All the working memory is allocated once in the constructor, so an instance can be
+ * applied any number of times without allocating. Instances are not thread-safe.
+ */
+public class PermutationCrossover {
+
+	/* Global variables */
+	private final int size;							// Length of the permutations
+	private final ProblemMetric metric;				// Distances (only used by EAX, may be null)
+	private final Random random;					// Random generator
+	private int[] candidates;						// Candidate lists of the metric (EAX)
+	private int numCandidates;						// Length of each candidate list
+	private static final int CANDIDATES = 8;
+
+	/* Scratch buffers */
+	private final int[] mark;						// mark[v] == currentMark means that v is marked
+	private int currentMark;
+	private final int[] position;					// Position of each value in a parent
+	private final int[] adjacency;					// Neighbours of each value (4 slots per value in ERX, 2 in EAX)
+	private final int[] degree;						// Number of neighbours of each value in ERX
+	private final int[] remaining;					// Values not yet placed (ERX)
+	private final int[] remainingIndex;				// Index of each value in remaining
+	private final int[] adjacencyB;					// EAX: neighbours in the second parent
+	private final int[] usedA;						// EAX: 1 if an edge of the first parent is in the AB-cycle
+	private final int[] usedB;						// EAX: 1 if an edge of the second parent is in the AB-cycle
+	private final int[] path;						// EAX: alternating walk
+	private final int[] visitedAt;					// EAX: index in path in which a value was reached (even steps)
+	private final int[] component;					// EAX: subtour of each value
+	private final int[] componentSize;				// EAX: number of values in each subtour
+	private final int[] cycle;						// EAX: the child as a cycle
+	private double bestCost;						// EAX: best exchange found to join two subtours
+	private int bestU, bestU2, bestW, bestW2;
+	private boolean bestCrossed;
+
+	/** Constructor. The metric is only needed by EAX to join subtours; it may be null. */
+	public PermutationCrossover(int size, ProblemMetric metric, Random random) {
+
+		this.size = size;
+		this.metric = metric;
+		this.random = random;
+
+		mark = new int[size];
+		position = new int[size];
+		adjacency = new int[4 * size];
+		degree = new int[size];
+		remaining = new int[size];
+		remainingIndex = new int[size];
+		adjacencyB = new int[2 * size];
+		usedA = new int[2 * size];
+		usedB = new int[2 * size];
+		path = new int[4 * size + 2];
+		visitedAt = new int[size];
+		component = new int[size];
+		componentSize = new int[size];
+		cycle = new int[size];
+
+		if(metric != null) {
+
+			candidates = metric.getNeighbors(CANDIDATES);
+			numCandidates = candidates.length / (size + 2);
+		}
+	}
+
+	/* Generates a child given two parents with the corresponding scheme */
+	public void cross(CrossoverScheme scheme, int[] parent1, int[] parent2, int[] child) {
+
+		switch(scheme) {
+
+			case ORDER:
+				orderCrossover(parent1, parent2, child);
+				break;
+
+			case PMX:
+				partiallyMappedCrossover(parent1, parent2, child);
+				break;
+
+			case EDGE_RECOMBINATION:
+				edgeRecombinationCrossover(parent1, parent2, child);
+				break;
+
+			case EDGE_ASSEMBLY:
+				edgeAssemblyCrossover(parent1, parent2, child);
+				break;
+
+			// Arithmetical schemes are not permutation crossovers
+			default:
+				throw new IllegalArgumentException("Not a permutation crossover: " + scheme);
+		}
+	}
+
+	/* Order crossover: keeps a segment of the first parent and the relative order of the second */
+	public void orderCrossover(int[] parent1, int[] parent2, int[] child) {
+
+		int a = random.nextInt(size);
+		int b = random.nextInt(size);
+		if(a > b) { int aux = a; a = b; b = aux; }
+
+		nextMark();
+
+		// Copies the segment of the first parent
+		for(int i = a; i <= b; i++) {
+
+			child[i] = parent1[i];
+			mark[parent1[i]] = currentMark;
+		}
+
+		// Fills the rest, after the segment, in the order of the second parent
+		int k = (b + 1) % size;
+		for(int i = 0; i < size; i++) {
+
+			int value = parent2[(b + 1 + i) % size];
+			if(mark[value] != currentMark) {
+
+				child[k] = value;
+				k = (k + 1) % size;
+			}
+		}
+	}
+
+	/* Partially mapped crossover: keeps a segment of the first parent and maps the conflicts of the second */
+	public void partiallyMappedCrossover(int[] parent1, int[] parent2, int[] child) {
+
+		int a = random.nextInt(size);
+		int b = random.nextInt(size);
+		if(a > b) { int aux = a; a = b; b = aux; }
+
+		nextMark();
+
+		// Copies the segment of the first parent
+		for(int i = a; i <= b; i++) {
+
+			child[i] = parent1[i];
+			position[parent1[i]] = i;
+			mark[parent1[i]] = currentMark;
+		}
+
+		// The rest comes from the second parent, following the mapping parent1[i] -> parent2[i] on conflicts
+		for(int i = 0; i < size; i++) {
+
+			if(i >= a && i <= b)
+				continue;
+
+			int value = parent2[i];
+			while(mark[value] == currentMark)
+				value = parent2[position[value]];
+			child[i] = value;
+		}
+	}
+
+	/* Edge recombination crossover: builds the child using the edges of both parents, preferring cities with fewer edges left */
+	public void edgeRecombinationCrossover(int[] parent1, int[] parent2, int[] child) {
+
+		// Edge table (both parents are read as cycles)
+		for(int v = 0; v < size; v++)
+			degree[v] = 0;
+
+		for(int i = 0; i < size; i++) {
+
+			addEdge(parent1[i], parent1[(i + 1) % size]);
+			addEdge(parent2[i], parent2[(i + 1) % size]);
+		}
+
+		// Cities not placed yet
+		for(int v = 0; v < size; v++) {
+
+			remaining[v] = v;
+			remainingIndex[v] = v;
+		}
+		int numRemaining = size;
+
+		int current = random.nextBoolean() ? parent1[0] : parent2[0];
+
+		for(int i = 0; i < size; i++) {
+
+			child[i] = current;
+
+			// Removes the city from the remaining ones and from the edge table
+			int last = remaining[--numRemaining];
+			remaining[remainingIndex[current]] = last;
+			remainingIndex[last] = remainingIndex[current];
+
+			for(int j = 0; j < degree[current]; j++)
+				removeEdge(adjacency[4 * current + j], current);
+
+			if(numRemaining == 0)
+				break;
+
+			// Next city: the neighbour with the fewest edges left (random on ties)
+			int next = -1;
+			int ties = 0;
+			for(int j = 0; j < degree[current]; j++) {
+
+				int neighbour = adjacency[4 * current + j];
+				if(next == -1 || degree[neighbour] < degree[next]) {
+
+					next = neighbour;
+					ties = 1;
+				}
+				else if(degree[neighbour] == degree[next] && random.nextInt(++ties) == 0)
+					next = neighbour;
+			}
+
+			// If there are not neighbours left, takes a random city
+			if(next == -1)
+				next = remaining[random.nextInt(numRemaining)];
+
+			current = next;
+		}
+	}
+
+	/* Adds an undirected edge to the edge table of ERX (without duplicates) */
+	private void addEdge(int from, int to) {
+
+		appendNeighbour(from, to);
+		appendNeighbour(to, from);
+	}
+
+	private void appendNeighbour(int city, int neighbour) {
+
+		for(int j = 0; j < degree[city]; j++)
+			if(adjacency[4 * city + j] == neighbour)
+				return;
+
+		adjacency[4 * city + degree[city]++] = neighbour;
+	}
+
+	/* Removes a neighbour from the edge table of a city */
+	private void removeEdge(int city, int neighbour) {
+
+		for(int j = 0; j < degree[city]; j++)
+			if(adjacency[4 * city + j] == neighbour) {
+
+				adjacency[4 * city + j] = adjacency[4 * city + --degree[city]];
+				return;
+			}
+	}
+
+	/*
+	 * Edge assembly crossover (single AB-cycle version). The child starts as the first parent,
+	 * then an AB-cycle (edges taken alternately from each parent) replaces the edges of the first
+	 * parent with those of the second one. The resulting subtours are joined greedily.
+	 */
+	public void edgeAssemblyCrossover(int[] parent1, int[] parent2, int[] child) {
+
+		// Adjacency of both parents as cycles: slot 0 is the successor and slot 1 the predecessor
+		for(int i = 0; i < size; i++) {
+
+			int v = parent1[i];
+			adjacency[2 * v] = parent1[(i + 1) % size];
+			adjacency[2 * v + 1] = parent1[(i + size - 1) % size];
+			v = parent2[i];
+			adjacencyB[2 * v] = parent2[(i + 1) % size];
+			adjacencyB[2 * v + 1] = parent2[(i + size - 1) % size];
+		}
+
+		// Edges shared by both parents never take part in an AB-cycle
+		int start = -1;
+		int candidates = 0;
+		for(int v = 0; v < size; v++) {
+
+			for(int s = 0; s < 2; s++) {
+
+				usedA[2 * v + s] = hasEdge(adjacencyB, v, adjacency[2 * v + s]) ? 1 : 0;
+				usedB[2 * v + s] = hasEdge(adjacency, v, adjacencyB[2 * v + s]) ? 1 : 0;
+			}
+			if((usedA[2 * v] == 0 || usedA[2 * v + 1] == 0) && random.nextInt(++candidates) == 0)
+				start = v;
+		}
+
+		// Equal parents (as cycles)
+		if(start == -1) {
+
+			System.arraycopy(parent1, 0, child, 0, size);
+			return;
+		}
+
+		// Alternating walk from start until a vertex is reached again before taking an edge of the first parent
+		nextMark();
+		int length = 0;
+		int current = start;
+		int cycleStart;
+		while(true) {
+
+			if(mark[current] == currentMark) {
+
+				cycleStart = visitedAt[current];
+				break;
+			}
+			mark[current] = currentMark;
+			visitedAt[current] = length;
+			path[length++] = current;
+
+			current = takeEdge(adjacency, usedA, current);
+			path[length++] = current;
+			current = takeEdge(adjacencyB, usedB, current);
+		}
+		path[length] = current;
+
+		// Applies the AB-cycle path[cycleStart..length]: removes edges of the first parent (even steps) ...
+		for(int i = cycleStart; i < length; i += 2)
+			replaceNeighbour(path[i], path[i + 1], -1);
+		for(int i = cycleStart; i < length; i += 2)
+			replaceNeighbour(path[i + 1], path[i], -1);
+		// ... and adds those of the second (odd steps)
+		for(int i = cycleStart + 1; i < length; i += 2) {
+
+			replaceNeighbour(path[i], -1, path[i + 1]);
+			replaceNeighbour(path[i + 1], -1, path[i]);
+		}
+
+		joinSubtours();
+
+		// Reads the resulting cycle and opens it at the best place
+		int previous = -1;
+		current = 0;
+		for(int i = 0; i < size; i++) {
+
+			cycle[i] = current;
+			int next = adjacency[2 * current] != previous ? adjacency[2 * current] : adjacency[2 * current + 1];
+			previous = current;
+			current = next;
+		}
+		openCycle(cycle, child);
+	}
+
+	/* Whether v is adjacent to w in the given adjacency (two slots per value) */
+	private static boolean hasEdge(int[] adjacency, int v, int w) {
+
+		return adjacency[2 * v] == w || adjacency[2 * v + 1] == w;
+	}
+
+	/* Marks as used an unused edge of v (random if there are two) and returns the other end */
+	private int takeEdge(int[] adjacency, int[] used, int v) {
+
+		int s;
+		if(used[2 * v] == 0 && used[2 * v + 1] == 0)
+			s = random.nextInt(2);
+		else
+			s = used[2 * v] == 0 ? 0 : 1;
+
+		int w = adjacency[2 * v + s];
+		used[2 * v + s] = 1;
+		// The same edge seen from the other end
+		if(adjacency[2 * w] == v && used[2 * w] == 0)
+			used[2 * w] = 1;
+		else
+			used[2 * w + 1] = 1;
+		return w;
+	}
+
+	/* Replaces (one occurrence of) a neighbour of v in the child adjacency */
+	private void replaceNeighbour(int v, int oldNeighbour, int newNeighbour) {
+
+		if(adjacency[2 * v] == oldNeighbour)
+			adjacency[2 * v] = newNeighbour;
+		else
+			adjacency[2 * v + 1] = newNeighbour;
+	}
+
+	/* Joins the subtours of the child adjacency, always merging the smallest with the cheapest 2-exchange */
+	private void joinSubtours() {
+
+		// Labels the subtours
+		for(int v = 0; v < size; v++)
+			component[v] = -1;
+
+		int numComponents = 0;
+		for(int v = 0; v < size; v++) {
+
+			if(component[v] != -1)
+				continue;
+
+			componentSize[numComponents] = 0;
+			int previous = -1;
+			int current = v;
+			while(component[current] == -1) {
+
+				component[current] = numComponents;
+				componentSize[numComponents]++;
+				int next = adjacency[2 * current] != previous ? adjacency[2 * current] : adjacency[2 * current + 1];
+				previous = current;
+				current = next;
+			}
+			numComponents++;
+		}
+
+		for(int remainingComponents = numComponents; remainingComponents > 1; remainingComponents--) {
+
+			// Smallest subtour
+			int smallest = -1;
+			for(int c = 0; c < numComponents; c++)
+				if(componentSize[c] > 0 && (smallest == -1 || componentSize[c] < componentSize[smallest]))
+					smallest = c;
+
+			// Best exchange between an edge (u, u2) of the subtour and an edge (w, w2) outside it.
+			// First, w is searched among the nearest neighbours of u; if none is outside the
+			// subtour, all the edges are considered.
+			bestCost = Double.POSITIVE_INFINITY;
+			bestU = -1;
+			for(int u = 0; u < size && candidates != null; u++) {
+
+				if(component[u] != smallest)
+					continue;
+
+				for(int j = 0; j < numCandidates; j++) {
+
+					int w = candidates[u * numCandidates + j];
+					if(w >= size || component[w] == smallest)
+						continue;
+
+					for(int s = 0; s < 2; s++)
+						for(int t = 0; t < 2; t++)
+							evaluateExchange(u, adjacency[2 * u + s], w, adjacency[2 * w + t]);
+				}
+			}
+
+			for(int u = 0; u < size && bestU == -1; u++) {
+
+				if(component[u] != smallest)
+					continue;
+
+				for(int w = 0; w < size; w++)
+					if(component[w] != smallest)
+						evaluateExchange(u, adjacency[2 * u], w, adjacency[2 * w]);
+			}
+
+			// Applies the exchange
+			if(bestCrossed) { int aux = bestW; bestW = bestW2; bestW2 = aux; }
+			replaceNeighbour(bestU, bestU2, bestW);
+			replaceNeighbour(bestU2, bestU, bestW2);
+			replaceNeighbour(bestW, bestW2, bestU);
+			replaceNeighbour(bestW2, bestW, bestU2);
+
+			// The subtour now belongs to the other one
+			int target = component[bestW];
+			for(int v = 0; v < size; v++)
+				if(component[v] == smallest)
+					component[v] = target;
+			componentSize[target] += componentSize[smallest];
+			componentSize[smallest] = 0;
+		}
+	}
+
+	/* Considers replacing the edges (u, u2) and (w, w2) by (u, w), (u2, w2) or by (u, w2), (u2, w) */
+	private void evaluateExchange(int u, int u2, int w, int w2) {
+
+		if(metric == null) {
+
+			if(bestU == -1) {
+
+				bestU = u; bestU2 = u2; bestW = w; bestW2 = w2;
+				bestCrossed = false;
+			}
+			return;
+		}
+
+		double removed = metric.distance(u, u2) + metric.distance(w, w2);
+		double straight = metric.distance(u, w) + metric.distance(u2, w2) - removed;
+		double crossed = metric.distance(u, w2) + metric.distance(u2, w) - removed;
+		if(straight < bestCost) {
+
+			bestCost = straight;
+			bestU = u; bestU2 = u2; bestW = w; bestW2 = w2;
+			bestCrossed = false;
+		}
+		if(crossed < bestCost) {
+
+			bestCost = crossed;
+			bestU = u; bestU2 = u2; bestW = w; bestW2 = w2;
+			bestCrossed = true;
+		}
+	}
+
+	/*
+	 * Writes a cycle as a path, choosing the edge to remove and the direction that minimise the
+	 * cost of going from the beginning of the path (node size) to its end (node size + 1).
+	 */
+	private void openCycle(int[] cycle, int[] child) {
+
+		int bestCut = 0;
+		boolean bestReversed = false;
+
+		if(metric != null) {
+
+			int begin = size, end = size + 1;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for(int k = 0; k < size; k++) {
+
+				// The edge (cycle[k], cycle[k + 1]) is removed
+				int last = cycle[k], first = cycle[(k + 1) % size];
+				double removed = metric.distance(last, first);
+				double forward = metric.distance(begin, first) + metric.distance(last, end) - removed;
+				double backward = metric.distance(begin, last) + metric.distance(first, end) - removed;
+				if(forward < bestCost) {
+
+					bestCost = forward;
+					bestCut = k;
+					bestReversed = false;
+				}
+				if(backward < bestCost) {
+
+					bestCost = backward;
+					bestCut = k;
+					bestReversed = true;
+				}
+			}
+		}
+
+		for(int i = 0; i < size; i++)
+			child[i] = bestReversed ? cycle[(bestCut - i + size) % size] : cycle[(bestCut + 1 + i) % size];
+	}
+
+	/* Starts a new marking round (avoids clearing the mark array) */
+	private void nextMark() {
+
+		if(++currentMark == Integer.MAX_VALUE) {
+
+			for(int v = 0; v < size; v++)
+				mark[v] = 0;
+			currentMark = 1;
+		}
+	}
+}
@@ -20,7 +20,7 @@ public class RandomSearch extends OptimizationAlgorithm {
 		// Generates all the configurations.
 		Configuration randomConfiguration;
 		
-		for (int nSolution=0;nSolution<numSolutions;nSolution++){
+		for (int nSolution=0;nSolution<numSolutions && !isStopRequested();nSolution++){
 			// Generates a configuration.
 			randomConfiguration = problem.genRandomConfiguration();
 			// Evaluates it.
@@ -0,0 +1,388 @@
+package algorithms;
+
+/* Imported packages from Java */
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+/* Imported packages within the project */
+import optimization.Configuration;
+import optimization.OptimizationAlgorithm;
+import optimization.ProblemMetric;
+import utils.FastRandom;
+import utils.RandomStreams;
+
+/**
+ * Simulated annealing over permutation moves (2-opt reversal, swap and Or-opt insertion),
+ * evaluated with the delta scores of the problem. With one replica, the temperature falls
+ * geometrically from the maximum to the minimum one. With several replicas, it runs
+ * parallel tempering: each replica keeps a fixed temperature of a geometric ladder between
+ * the minimum and the maximum, runs in its own thread, and every few moves the replicas at
+ * adjacent temperatures try to exchange their states (Metropolis criterion), so that good
+ * tours found at high temperatures descend to the cold replicas.
+ *
+ * When the problem implements ProblemMetric, moves join a random city with one of its
+ * nearest neighbours; otherwise, both positions are random.
+ */
+public class SimulatedAnnealing extends OptimizationAlgorithm {
+
+	/* Parameters */
+	private int numReplicas = 1;					// Replicas (threads); 1 for plain simulated annealing
+	private long movesPerReplica = 1000000;			// Moves tried by each replica
+	private int exchangeInterval = 10000;			// Moves between exchanges of states
+	private double maxTemperature = -1;				// Temperatures (estimated from the problem if negative)
+	private double minTemperature = -1;
+
+	private static final int NEIGHBORS = 8;			// Length of the candidate lists
+	private static final int MAX_SEGMENT = 3;		// Maximum length of the Or-opt segments
+
+	/* Search state */
+	private Replica[] replicas;						// Replicas, sorted by temperature (the coldest one first)
+	private int[] neighbors;						// Candidate lists (or null)
+	private int k;									// Length of each candidate list
+	private long exchangesTried, exchangesAccepted;
+	private int rounds;								// Exchange rounds carried out
+	private volatile boolean stopped;				// Set at a barrier when the budget of the search is exhausted
+
+	@Override
+	public void search() {
+
+		// Starts the search
+		initSearch();
+		exchangesTried = 0;
+		exchangesAccepted = 0;
+		rounds = 0;
+
+		neighbors = null;
+		if(problem instanceof ProblemMetric) {
+
+			neighbors = ((ProblemMetric) problem).getNeighbors(NEIGHBORS);
+			k = neighbors.length / (problem.size() + 2);
+		}
+		if(maxTemperature < 0 || minTemperature < 0)
+			estimateTemperatures();
+
+		// Creates the replicas, with a geometric ladder of temperatures
+		replicas = new Replica[numReplicas];
+		for(int r = 0; r < numReplicas; r++) {
+
+			double temperature = numReplicas == 1 ? maxTemperature : minTemperature * Math.pow(maxTemperature / minTemperature, r / (double) (numReplicas - 1));
+			replicas[r] = new Replica(temperature, RandomStreams.newStream());
+		}
+
+		if(numReplicas == 1) {
+
+			// Plain simulated annealing: geometric cooling from the maximum to the minimum temperature
+			Replica replica = replicas[0];
+			double cooling = Math.pow(minTemperature / maxTemperature, exchangeInterval / (double) movesPerReplica);
+			for(long move = 0; move < movesPerReplica && !isStopRequested(); move += exchangeInterval) {
+
+				replica.run((int) Math.min(exchangeInterval, movesPerReplica - move));
+				replica.temperature *= cooling;
+				metrics.setGeneration(++rounds);
+			}
+		}
+		else
+			parallelTempering();
+
+		// Finish the search
+		stopSearch();
+	}
+
+	/* Runs each replica in its own thread; at every barrier, the states of adjacent replicas are exchanged */
+	private void parallelTempering() {
+
+		final long numRounds = (movesPerReplica + exchangeInterval - 1) / exchangeInterval;
+		final FastRandom random = RandomStreams.newStream();
+		stopped = false;
+		final CyclicBarrier barrier = new CyclicBarrier(numReplicas, () -> {
+			exchangeStates(random);
+			metrics.setGeneration(++rounds);
+			stopped = isStopRequested();
+		});
+
+		Thread[] threads = new Thread[numReplicas];
+		for(int r = 0; r < numReplicas; r++) {
+
+			final int index = r;
+			threads[r] = new Thread(() -> {
+
+				try {
+
+					for(long round = 0; round < numRounds && !stopped; round++) {
+
+						// Replicas may swap their states, so each round takes the current one
+						replicas[index].run((int) Math.min(exchangeInterval, movesPerReplica - round * exchangeInterval));
+						barrier.await();
+					}
+				} catch(InterruptedException | BrokenBarrierException ex) {
+
+					Thread.currentThread().interrupt();
+				}
+			}, "replica-" + r);
+			threads[r].start();
+		}
+
+		for(Thread thread : threads) {
+
+			try {
+
+				thread.join();
+			} catch(InterruptedException ex) {
+
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/* Tries to exchange the states of replicas at adjacent temperatures (all the threads are waiting) */
+	private void exchangeStates(FastRandom random) {
+
+		// Alternates between even and odd pairs
+		for(int r = rounds % 2; r + 1 < numReplicas; r += 2) {
+
+			Replica cold = replicas[r], hot = replicas[r + 1];
+			double exponent = (1 / cold.temperature - 1 / hot.temperature) * (cold.configuration.score() - hot.configuration.score());
+			exchangesTried++;
+			if(exponent >= 0 || random.nextDouble() < Math.exp(exponent)) {
+
+				Configuration configuration = cold.configuration;
+				cold.configuration = hot.configuration;
+				hot.configuration = configuration;
+				int[] position = cold.position;
+				cold.position = hot.position;
+				hot.position = position;
+				exchangesAccepted++;
+			}
+		}
+	}
+
+	/* Sets the temperatures from the mean increase of score of random moves on a random configuration */
+	private void estimateTemperatures() {
+
+		Replica replica = new Replica(1, RandomStreams.newStream());
+		double total = 0;
+		int increases = 0;
+		for(int i = 0; i < 1000; i++) {
+
+			double delta = replica.randomMove(false);
+			if(delta > 0) {
+
+				total += delta;
+				increases++;
+			}
+		}
+		double mean = increases > 0 ? total / increases : 1;
+		if(maxTemperature < 0)
+			maxTemperature = mean / Math.log(2);			// Half of the mean increases are accepted at first
+		if(minTemperature < 0)
+			minTemperature = maxTemperature / 10000;
+	}
+
+	/* A configuration that evolves at a given temperature */
+	private class Replica {
+
+		private Configuration configuration;
+		private int[] position;						// Position of each city in the configuration
+		private double temperature;
+		private final FastRandom random;
+		private long tried, accepted;
+
+		/*
+		 * Best configuration of the current round. It is only copied when a move leaves it,
+		 * and the global best is updated at the end of the round, so improving moves are O(1).
+		 */
+		private final Configuration roundBest;
+		private double roundBestScore;
+		private boolean atRoundBest;				// Whether the current configuration is the best of the round
+
+		Replica(double temperature, FastRandom random) {
+
+			this.temperature = temperature;
+			this.random = random;
+			configuration = initialConfiguration();
+			evaluate(configuration);
+			position = new int[problem.size()];
+			updatePositions(0, problem.size() - 1);
+			roundBest = configuration.clone();
+		}
+
+		/* Tries a number of moves at the current temperature and updates the best configuration of the search */
+		void run(int moves) {
+
+			roundBestScore = configuration.score();
+			atRoundBest = true;
+			for(int i = 0; i < moves; i++)
+				randomMove(true);
+			if(atRoundBest)
+				updateBest(configuration, configuration.score());
+			else
+				updateBest(roundBest, roundBestScore);
+		}
+
+		/*
+		 * Generates a random move and returns its change of score. If metropolis is true, the move
+		 * is applied when it improves or, with probability exp(-delta / T), when it does not.
+		 */
+		double randomMove(boolean metropolis) {
+
+			int size = problem.size();
+			if(size < 4)
+				return 0;
+
+			// First position, and second position (next to a neighbour of the first city, if possible)
+			int i = random.nextInt(size);
+			int j;
+			if(neighbors != null) {
+
+				int neighbor = neighbors[configuration.getValues()[i] * k + random.nextInt(k)];
+				if(neighbor >= size)
+					return 0;					// The agent or the exit
+				j = position[neighbor];
+			}
+			else
+				j = random.nextInt(size);
+			if(i == j)
+				return 0;
+
+			double delta;
+			int type = random.nextInt(4);
+			if(type < 2) {
+
+				// 2-opt: the first city is joined with the second one
+				int from = i < j ? i + 1 : j + 1;
+				int to = i < j ? j : i;
+				if(from >= to)
+					return 0;
+				delta = evaluateReversal(configuration, from, to);
+				tried++;
+				if(metropolis && accept(delta)) {
+
+					keepRoundBest(delta);
+					configuration.reverse(from, to);
+					updatePositions(from, to);
+					moved(delta);
+				}
+			}
+			else if(type == 2) {
+
+				// Swap: the city after the first one is exchanged with the second one
+				int next = i + 1 < size ? i + 1 : i - 1;
+				if(next == j)
+					return 0;
+				delta = evaluateSwap(configuration, next, j);
+				tried++;
+				if(metropolis && accept(delta)) {
+
+					keepRoundBest(delta);
+					configuration.swap(next, j);
+					updatePositions(next, next);
+					updatePositions(j, j);
+					moved(delta);
+				}
+			}
+			else {
+
+				// Or-opt: a segment that begins at the first city is moved after the second one
+				int length = 1 + random.nextInt(MAX_SEGMENT);
+				if(i + length > size || (j >= i && j < i + length))
+					return 0;
+				int target = j + 1;
+				if(target >= i && target <= i + length)
+					return 0;
+				delta = evaluateInsertion(configuration, i, length, target);
+				tried++;
+				if(metropolis && accept(delta)) {
+
+					keepRoundBest(delta);
+					configuration.moveSegment(i, length, target);
+					updatePositions(Math.min(i, target), Math.max(i + length, target) - 1);
+					moved(delta);
+				}
+			}
+			return delta;
+		}
+
+		/* Copies the configuration before a move that worsens it, if it is the best of the round */
+		private void keepRoundBest(double delta) {
+
+			if(delta > 0 && atRoundBest) {
+
+				System.arraycopy(configuration.getValues(), 0, roundBest.getValues(), 0, problem.size());
+				roundBest.setScore(roundBestScore);
+				atRoundBest = false;
+			}
+		}
+
+		/* Updates the score of the configuration after a move */
+		private void moved(double delta) {
+
+			double score = configuration.score() + delta;
+			configuration.setScore(score);
+			if(score < roundBestScore) {
+
+				roundBestScore = score;
+				atRoundBest = true;
+			}
+		}
+
+		/* Metropolis criterion */
+		private boolean accept(double delta) {
+
+			if(delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+
+				accepted++;
+				return true;
+			}
+			return false;
+		}
+
+		/* Updates the positions of the cities between two positions */
+		private void updatePositions(int from, int to) {
+
+			int[] values = configuration.getValues();
+			for(int p = from; p <= to; p++)
+				position[values[p]] = p;
+		}
+	}
+
+	/** Displays the statistics of the search. */
+	@Override
+	public void showAlgorithmStats() {
+
+		for(int r = 0; r < numReplicas; r++)
+			System.out.println("Replica " + r + ": temperature = " + replicas[r].temperature + ", score = " + replicas[r].configuration.score()
+					+ ", acceptance = " + (replicas[r].tried > 0 ? 100.0 * replicas[r].accepted / replicas[r].tried : 0) + "%");
+		if(numReplicas > 1)
+			System.out.println("Exchanges accepted: " + exchangesAccepted + " of " + exchangesTried);
+	}
+
+	/** Parameters: replicas, moves per replica, moves between exchanges, maximum and minimum temperatures. */
+	@Override
+	public void setParams(String[] args) {
+
+		try {
+
+			if(args.length > 0)
+				numReplicas = Math.max(1, Integer.parseInt(args[0]));
+			if(args.length > 1)
+				movesPerReplica = Long.parseLong(args[1]);
+			if(args.length > 2)
+				exchangeInterval = Math.max(1, Integer.parseInt(args[2]));
+			if(args.length > 4) {
+
+				maxTemperature = Double.parseDouble(args[3]);
+				minTemperature = Double.parseDouble(args[4]);
+			}
+		} catch(Exception ex) {
+
+			numReplicas = 1;
+			movesPerReplica = 1000000;
+			exchangeInterval = 10000;
+			maxTemperature = -1;
+			minTemperature = -1;
+		}
+		System.out.println("Using the following configuration: replicas = " + numReplicas + ", moves per replica = " + movesPerReplica + ", exchange interval = " + exchangeInterval
+				+ ", temperatures = " + (maxTemperature < 0 ? "estimated" : maxTemperature + " - " + minTemperature));
+	}
+}
@@ -3,5 +3,8 @@ package algorithms;
 public enum StopCriterion {
 	
 	GENERATIONS,
-	STANDSTILL;
+	STANDSTILL,
+	TIME,
+	EVALUATIONS,
+	TARGET_SCORE;
 }
@@ -0,0 +1,147 @@
+package algorithms;
+
+/* Imported packages within the project */
+import optimization.ProblemMetric;
+
+/**
+ * Array representation of a path as a cycle, used by the edge-based local searches.
+ *
+ * The path of a configuration (beginning -> values -> end) is stored as a cycle over
+ * size+2 nodes that is closed by the fixed edge (end, beginning). That edge costs
+ * nothing and moves must never remove it. The cycle has no fixed orientation: moves
+ * may reverse either side of it, and toValues() reads it from the beginning towards
+ * the first value.
+ */
+public class Tour {
+
+	/* Global variables */
+	private final ProblemMetric metric;		// Distances between nodes
+	private final int numNodes;				// Number of nodes (values, beginning and end)
+	private final int begin;				// Fixed beginning of the path
+	private final int end;					// Fixed end of the path
+	private final int[] tour;				// Nodes in cycle order
+	private final int[] position;			// Position of each node in tour
+
+	/** Creates the tour of the configuration values given. */
+	public Tour(ProblemMetric metric, int[] values) {
+
+		this.metric = metric;
+		numNodes = values.length + 2;
+		begin = values.length;
+		end = values.length + 1;
+		tour = new int[numNodes];
+		position = new int[numNodes];
+		setValues(values);
+	}
+
+	/** Sets the tour to the path given by the configuration values. */
+	public void setValues(int[] values) {
+
+		tour[0] = begin;
+		System.arraycopy(values, 0, tour, 1, values.length);
+		tour[numNodes - 1] = end;
+		for(int i = 0; i < numNodes; i++)
+			position[tour[i]] = i;
+	}
+
+	/** Writes the path (without the beginning and the end) in values. */
+	public void toValues(int[] values) {
+
+		boolean forward = succ(begin) != end;
+		int node = begin;
+		for(int i = 0; i < values.length; i++) {
+
+			node = forward ? succ(node) : pred(node);
+			values[i] = node;
+		}
+	}
+
+	/** Returns the number of nodes. */
+	public int numNodes() {
+
+		return numNodes;
+	}
+
+	/** Returns the next node in the cycle. */
+	public int succ(int node) {
+
+		int i = position[node] + 1;
+		return tour[i == numNodes ? 0 : i];
+	}
+
+	/** Returns the previous node in the cycle. */
+	public int pred(int node) {
+
+		int i = position[node] - 1;
+		return tour[i < 0 ? numNodes - 1 : i];
+	}
+
+	/** Whether the edge between two nodes is the fixed edge (end, beginning). */
+	public boolean isFixed(int a, int b) {
+
+		return (a == begin && b == end) || (a == end && b == begin);
+	}
+
+	/** Cost of the edge between two nodes (the fixed edge costs nothing). */
+	public double cost(int a, int b) {
+
+		return isFixed(a, b) ? 0 : metric.distance(a, b);
+	}
+
+	/** Returns the total cost of the cycle, which is the length of the path. */
+	public double length() {
+
+		double length = 0;
+		for(int i = 0; i < numNodes; i++)
+			length += cost(tour[i], tour[i + 1 == numNodes ? 0 : i + 1]);
+		return length;
+	}
+
+	/**
+	 * 2-opt move: removes the edges (t1, t2) and (t3, t4), and adds (t1, t3) and (t2, t4).
+	 * Either t2 = succ(t1) and t4 = succ(t3), or t2 = pred(t1) and t4 = pred(t3).
+	 */
+	public void make2OptMove(int t1, int t2, int t3, int t4) {
+
+		if(succ(t1) == t2)
+			reverse(t2, t3);
+		else
+			reverse(t3, t2);
+	}
+
+	/**
+	 * Reverses the path that goes (following succ) from one node to another. If it is longer
+	 * than half the cycle, the rest of the cycle is reversed instead (same resulting cycle).
+	 */
+	private void reverse(int from, int to) {
+
+		int i = position[from];
+		int j = position[to];
+		int length = j - i;
+		if(length < 0)
+			length += numNodes;
+		length++;
+		if(2 * length > numNodes) {
+
+			i = position[to] + 1;
+			j = position[from] - 1;
+			length = numNodes - length;
+		}
+
+		for(int swaps = length / 2; swaps > 0; swaps--) {
+
+			if(i >= numNodes)
+				i -= numNodes;
+			if(j < 0)
+				j += numNodes;
+			int a = tour[i];
+			int b = tour[j];
+			tour[i] = b;
+			position[b] = i;
+			tour[j] = a;
+			position[a] = j;
+			i++;
+			j--;
+		}
+	}
+}
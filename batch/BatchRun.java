@@ -0,0 +1,48 @@
+package batch;
+
+/** One run of a batch: a problem, an algorithm and a seed, and the results of the search. */
+public class BatchRun {
+
+	/* Definition */
+	public final int index;
+	public final String problemName;
+	public final String[] problemParams;
+	public final String algorithmName;
+	public final String[] algorithmParams;
+	public final long seed;
+
+	/* Results (set when the run finishes) */
+	public double bestScore = Double.NaN;
+	public long evaluations, deltaEvaluations, generations;
+	public double wallTime;							// Seconds
+	public String error;							// Message of the exception that stopped the run, or null
+
+	public BatchRun(int index, String problemName, String[] problemParams, String algorithmName, String[] algorithmParams, long seed){
+		this.index = index;
+		this.problemName = problemName;
+		this.problemParams = problemParams;
+		this.algorithmName = algorithmName;
+		this.algorithmParams = algorithmParams;
+		this.seed = seed;
+	}
+
+	/** Problem with its parameters, e.g. "tsp.TSP 1000 100 1". */
+	public String problem(){
+		return join(problemName, problemParams);
+	}
+
+	/** Algorithm with its parameters. */
+	public String algorithm(){
+		return join(algorithmName, algorithmParams);
+	}
+
+	private static String join(String name, String[] params){
+		return params.length==0 ? name : name+" "+String.join(" ", params);
+	}
+
+	@Override
+	public String toString(){
+		return "#"+index+" "+problem()+" -- "+algorithm()+" (seed "+seed+")"+(error==null ? "" : ": "+error)
+				+(Double.isNaN(bestScore) ? "" : ": "+bestScore);
+	}
+}
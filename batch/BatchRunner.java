@@ -0,0 +1,241 @@
+package batch;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import optimization.OptimizationAlgorithm;
+import optimization.OptimizationProblem;
+import reporting.SearchMetrics;
+import utils.RandomStreams;
+
+/**
+ * Runs a grid of experiments in a single JVM, several at once, and writes one row per run
+ * (CSV, or JSON lines if the output file ends in .json or .jsonl) plus aggregate statistics
+ * of each problem and algorithm over the seeds.
+ *
+ * The specification file has one entry per line (# starts a comment):
+ *   problem   name [params]      e.g. problem tsp.TSP 1000 {100,1000} {1,2}
+ *   algorithm name [params]      e.g. algorithm GeneticAlgorithm 100 2 5 0 0 {100,500}
+ *   seeds     list               e.g. seeds 1-10 20 (seeds of the algorithms; default 1)
+ * A parameter written as {a,b,...} expands the line into one per value (all the
+ * combinations if there are several). Every problem is solved with every algorithm and
+ * seed. Each run uses its own random streams (see RandomStreams.setLocalSeed()), so its
+ * result does not depend on the runs carried out at the same time.
+ */
+public class BatchRunner {
+
+	private final List<BatchRun> runs;
+	private final int workers;
+	private final String outputFile;
+	private final boolean json;
+	private BufferedWriter writer;
+	private int finished;
+
+	/** Creates a runner of the runs of a specification file. */
+	public BatchRunner(String specFile, int workers, String outputFile) throws IOException {
+		this.runs = readSpec(specFile);
+		this.workers = Math.max(1, workers);
+		this.outputFile = outputFile;
+		this.json = outputFile.endsWith(".json") || outputFile.endsWith(".jsonl");
+	}
+
+	/** Reads a specification file and returns its runs. */
+	public static List<BatchRun> readSpec(String specFile) throws IOException {
+		List<String[]> problems = new ArrayList<>(), algorithms = new ArrayList<>();
+		List<Long> seeds = new ArrayList<>();
+		int lineNumber = 0;
+		for (String line: Files.readAllLines(Paths.get(specFile))){
+			lineNumber++;
+			int comment = line.indexOf('#');
+			String[] tokens = (comment<0 ? line : line.substring(0, comment)).trim().split("\\s+");
+			if (tokens[0].isEmpty())
+				continue;
+			String[] params = Arrays.copyOfRange(tokens, 1, tokens.length);
+			switch (tokens[0]){
+				case "problem":
+				case "algorithm":
+					if (params.length==0)
+						throw new IOException("Line "+lineNumber+": the name of the "+tokens[0]+" is missing.");
+					boolean isProblem = tokens[0].equals("problem");
+					List<String[]> lines = isProblem ? problems : algorithms;
+					int expanded = lines.size();
+					expand(params, 0, lines);
+					// The factories exit the JVM on unknown names, so they are checked here
+					for (String[] entry: lines.subList(expanded, lines.size()))
+						if (!isSubclass(isProblem ? "problems." : "algorithms.", entry[0], isProblem ? OptimizationProblem.class : OptimizationAlgorithm.class))
+							throw new IOException("Line "+lineNumber+": unknown "+tokens[0]+" "+entry[0]+".");
+					break;
+				case "seeds":
+					for (String seed: params){
+						int dash = seed.indexOf('-', 1);
+						try{
+							long from = Long.parseLong(dash<0 ? seed : seed.substring(0, dash));
+							long to = dash<0 ? from : Long.parseLong(seed.substring(dash+1));
+							for (long s=from;s<=to;s++)
+								seeds.add(s);
+						}
+						catch (NumberFormatException e){
+							throw new IOException("Line "+lineNumber+": wrong seed "+seed+".");
+						}
+					}
+					break;
+				default:
+					throw new IOException("Line "+lineNumber+": unknown entry "+tokens[0]+".");
+			}
+		}
+		if (problems.isEmpty() || algorithms.isEmpty())
+			throw new IOException("The specification needs at least a problem and an algorithm.");
+		if (seeds.isEmpty())
+			seeds.add(1L);
+
+		List<BatchRun> runs = new ArrayList<>();
+		for (String[] problem: problems)
+			for (String[] algorithm: algorithms)
+				for (long seed: seeds)
+					runs.add(new BatchRun(runs.size()+1, problem[0], Arrays.copyOfRange(problem, 1, problem.length),
+							algorithm[0], Arrays.copyOfRange(algorithm, 1, algorithm.length), seed));
+		return runs;
+	}
+
+	/* Whether the class package.name exists and can be instantiated as a subclass of type */
+	private static boolean isSubclass(String packageName, String name, Class<?> type){
+		try{
+			Class<?> found = Class.forName(packageName+name);
+			return type.isAssignableFrom(found) && !Modifier.isAbstract(found.getModifiers());
+		}
+		catch (ClassNotFoundException | LinkageError e){
+			return false;
+		}
+	}
+
+	/* Adds the combinations of the values of the tokens from position i on */
+	private static void expand(String[] tokens, int i, List<String[]> lines){
+		for (;i<tokens.length;i++){
+			if (tokens[i].startsWith("{") && tokens[i].endsWith("}")){
+				for (String value: tokens[i].substring(1, tokens[i].length()-1).split(",")){
+					String[] copy = tokens.clone();
+					copy[i] = value.trim();
+					expand(copy, i+1, lines);
+				}
+				return;
+			}
+		}
+		lines.add(tokens);
+	}
+
+	/** Carries out all the runs, writes their rows and prints the aggregate statistics. */
+	public void run() throws IOException {
+		System.out.println("Batch: "+runs.size()+" runs, "+workers+" at once.");
+		writer = new BufferedWriter(new FileWriter(outputFile));
+		if (!json){
+			writer.write("run,problem,algorithm,seed,best_score,evaluations,delta_evaluations,generations,wall_time_s,error");
+			writer.newLine();
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		for (BatchRun run: runs)
+			pool.execute(() -> execute(run));
+		pool.shutdown();
+		try{
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		}
+		catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		writer.close();
+		System.out.println("Results written in "+outputFile+".");
+		summarize();
+	}
+
+	/* Carries out a run in the calling thread */
+	private void execute(BatchRun run){
+		RandomStreams.setLocalSeed(run.seed);
+		long start = System.nanoTime();
+		try{
+			OptimizationProblem problem = OptimizationProblem.generateProblem(run.problemName, run.problemParams);
+			OptimizationAlgorithm algorithm = OptimizationAlgorithm.generateAlgorithm(run.algorithmName, run.algorithmParams);
+			algorithm.setProblem(problem);
+			start = System.nanoTime();
+			algorithm.search();
+			SearchMetrics.Snapshot snapshot = algorithm.getMetrics().sample();
+			run.bestScore = algorithm.getBestSolution()!=null ? algorithm.getBestSolution().score() : Double.NaN;
+			run.evaluations = snapshot.evaluations;
+			run.deltaEvaluations = snapshot.deltaEvaluations;
+			run.generations = snapshot.generation;
+		}
+		catch (RuntimeException | OutOfMemoryError e){
+			run.error = e.toString();
+		}
+		finally{
+			run.wallTime = (System.nanoTime()-start)/1e9;
+			RandomStreams.clearLocalSeed();
+		}
+		write(run);
+	}
+
+	/* Writes the row of a finished run */
+	private synchronized void write(BatchRun run){
+		try{
+			if (json)
+				writer.write("{\"run\":"+run.index+",\"problem\":"+quote(run.problem())+",\"algorithm\":"+quote(run.algorithm())
+						+",\"seed\":"+run.seed+",\"best_score\":"+number(run.bestScore)+",\"evaluations\":"+run.evaluations
+						+",\"delta_evaluations\":"+run.deltaEvaluations+",\"generations\":"+run.generations
+						+",\"wall_time_s\":"+number(run.wallTime)+",\"error\":"+(run.error==null ? "null" : quote(run.error))+"}");
+			else
+				writer.write(run.index+","+csv(run.problem())+","+csv(run.algorithm())+","+run.seed+","+run.bestScore+","+run.evaluations+","
+						+run.deltaEvaluations+","+run.generations+","+run.wallTime+","+(run.error==null ? "" : csv(run.error)));
+			writer.newLine();
+			writer.flush();
+		}
+		catch (IOException e){
+			System.out.println("The results can't be written: "+e.getMessage());
+		}
+		System.out.println("Finished "+(++finished)+"/"+runs.size()+": "+run+" ("+String.format(Locale.ROOT, "%.2f", run.wallTime)+" s)");
+	}
+
+	/* Prints the statistics of each problem and algorithm over the seeds */
+	private void summarize(){
+		Map<String, List<BatchRun>> groups = new LinkedHashMap<>();
+		for (BatchRun run: runs)
+			groups.computeIfAbsent(run.problem()+" -- "+run.algorithm(), key -> new ArrayList<>()).add(run);
+
+		System.out.println("\nSUMMARY (best score over the seeds):");
+		System.out.println(String.format(Locale.ROOT, "%5s %14s %14s %14s %14s %14s %10s  %s", "runs", "mean", "std", "min", "median", "max", "time (s)", "problem -- algorithm"));
+		for (Map.Entry<String, List<BatchRun>> group: groups.entrySet()){
+			double[] scores = group.getValue().stream().filter(run -> !Double.isNaN(run.bestScore)).mapToDouble(run -> run.bestScore).sorted().toArray();
+			double time = group.getValue().stream().mapToDouble(run -> run.wallTime).average().orElse(0);
+			double mean = Arrays.stream(scores).average().orElse(Double.NaN);
+			double variance = 0;
+			for (double score: scores)
+				variance += (score-mean)*(score-mean);
+			double std = scores.length>1 ? Math.sqrt(variance/(scores.length-1)) : 0;
+			double median = scores.length==0 ? Double.NaN : scores.length%2==1 ? scores[scores.length/2] : (scores[scores.length/2-1]+scores[scores.length/2])/2;
+			System.out.println(String.format(Locale.ROOT, "%5d %14.2f %14.2f %14.2f %14.2f %14.2f %10.2f  %s", scores.length, mean, std,
+					scores.length==0 ? Double.NaN : scores[0], median, scores.length==0 ? Double.NaN : scores[scores.length-1], time, group.getKey()));
+		}
+	}
+
+	private static String quote(String text){
+		return "\""+text.replace("\\", "\\\\").replace("\"", "\\\"")+"\"";
+	}
+
+	private static String csv(String text){
+		return text.contains(",") || text.contains("\"") ? "\""+text.replace("\"", "\"\"")+"\"" : text;
+	}
+
+	private static String number(double value){
+		return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+	}
+}
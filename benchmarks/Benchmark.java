@@ -0,0 +1,60 @@
+package benchmarks;
+
+/**
+ * Minimal microbenchmark harness. Each benchmark is run in batches that last at least
+ * a fixed time: some warm-up batches (to let the JIT compile the code) are discarded,
+ * and the time per operation of the measured batches is reported as mean and standard
+ * deviation. Results are written to the consumer so that the JIT can't remove them.
+ */
+public class Benchmark {
+
+	/* Parameters of the measurement. */
+	private int warmupIterations = 5;
+	private int measuredIterations = 10;
+	private long iterationNanos = 200_000_000L;		// Minimum duration of each batch
+	
+	/* Consumer of the results of the operations. */
+	public static volatile double sink;
+
+	/** Operation being measured. Returns a value that is consumed. */
+	public interface Operation {
+		public double run();
+	}
+
+	/** Sets the number of warm-up and measured batches, and the duration of each batch (ms). */
+	public Benchmark(int warmupIterations, int measuredIterations, long iterationMillis) {
+		this.warmupIterations = warmupIterations;
+		this.measuredIterations = measuredIterations;
+		this.iterationNanos = iterationMillis * 1_000_000L;
+	}
+
+	/** Measures an operation and prints a line with the time per operation and the throughput. */
+	public void measure(String name, Operation operation) {
+		for (int i = 0; i < warmupIterations; i++)
+			batch(operation);
+		double sum = 0, sumSquares = 0;
+		for (int i = 0; i < measuredIterations; i++) {
+			double nanosPerOperation = batch(operation);
+			sum += nanosPerOperation;
+			sumSquares += nanosPerOperation * nanosPerOperation;
+		}
+		double mean = sum / measuredIterations;
+		double deviation = Math.sqrt(Math.max(0, sumSquares / measuredIterations - mean * mean));
+		System.out.println(String.format("%-45s %14.1f ns/op  (+- %10.1f)  %14.1f ops/s", name, mean, deviation, 1e9 / mean));
+	}
+
+	/* Runs the operation until the batch time is reached. Returns the time per operation. */
+	private double batch(Operation operation) {
+		double accumulated = 0;
+		long operations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			accumulated += operation.run();
+			operations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < iterationNanos);
+		sink = accumulated;
+		return elapsed / (double) operations;
+	}
+}
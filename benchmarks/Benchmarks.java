@@ -0,0 +1,134 @@
+package benchmarks;
+
+import algorithms.CrossoverScheme;
+import algorithms.LocalSearch;
+import algorithms.SelectionScheme;
+import java.util.ArrayList;
+import java.util.Random;
+
+import optimization.Configuration;
+import problems.tsp.TSP;
+import problems.tsp.maze.MazeTSP;
+import utils.RandomStreams;
+
+/**
+ * Benchmarks of the scoring functions, the operators of the genetic algorithm and
+ * complete generations. All the instances use fixed seeds, so results are comparable
+ * between commits.
+ *
+ * Usage: java benchmarks.Benchmarks [filter]   (only runs the benchmarks whose name
+ * contains the filter).
+ */
+public class Benchmarks {
+
+	/* Sizes (number of cities) of the scoring benchmarks. */
+	private static final int[] SIZES = { 100, 1000, 10000 };
+
+	/* Population and size of the operator benchmarks. */
+	private static final int POPULATION = 100;
+	private static final int CITIES = 200;
+	private static final int SEED = 1;
+
+	private static String filter = "";
+	private static Benchmark benchmark = new Benchmark(5, 10, 200);
+
+	public static void main(String[] args) {
+		if (args.length > 0)
+			filter = args[0];
+		// Streams of the algorithms and of the random configurations
+		RandomStreams.setSeed(SEED);
+
+		// Cost of a full evaluation
+		for (int size : SIZES) {
+			scoring("score/TSP/" + size, new TSP(1000, size, SEED));
+			scoring("score/MazeTSP/" + size, new MazeTSP(1000, size, SEED));
+		}
+
+		// Incremental update of an instance (warm start)
+		for (int size : SIZES)
+			update("update/TSP/" + size, size);
+
+		// Copy of a configuration
+		if (selected("clone/Configuration/" + CITIES)) {
+			final Configuration configuration = new TSP(1000, CITIES, SEED).genRandomConfiguration();
+			benchmark.measure("clone/Configuration/" + CITIES, () -> configuration.clone().getValues()[0]);
+		}
+
+		// Operators of the genetic algorithm
+		TSP tsp = new TSP(1000, CITIES, SEED);
+		for (SelectionScheme selection : SelectionScheme.values()) {
+			String name = "selection/" + selection + "/" + POPULATION;
+			if (!selected(name))
+				continue;
+			GeneticOperators operators = new GeneticOperators(tsp, params(selection, CrossoverScheme.ORDER, 0, 1));
+			final Configuration[] population = operators.population();
+			benchmark.measure(name, () -> operators.select(population).length);
+		}
+		for (CrossoverScheme crossover : CrossoverScheme.values()) {
+			String name = "crossover/" + crossover + "/" + POPULATION + "x" + CITIES;
+			if (!selected(name))
+				continue;
+			GeneticOperators operators = new GeneticOperators(tsp, params(SelectionScheme.TOURNAMENT, crossover, 0, 1));
+			final Configuration[] population = operators.population();
+			benchmark.measure(name, () -> {
+				Configuration[] children = population.clone();
+				operators.cross(children);
+				return children[0].getValues()[0];
+			});
+		}
+		if (selected("mutation/" + POPULATION + "x" + CITIES)) {
+			GeneticOperators operators = new GeneticOperators(tsp, params(SelectionScheme.TOURNAMENT, CrossoverScheme.ORDER, 0, 1));
+			final Configuration[] population = operators.population();
+			benchmark.measure("mutation/" + POPULATION + "x" + CITIES, () -> {
+				operators.mutate(population);
+				return population[0].getValues()[0];
+			});
+		}
+
+		// Complete generations (each operation is a search of 10 generations)
+		for (CrossoverScheme crossover : CrossoverScheme.values()) {
+			String name = "generations/TOURNAMENT/" + crossover + "/x10";
+			if (!selected(name))
+				continue;
+			// Configured once, so the timed operations print nothing
+			GeneticOperators algorithm = new GeneticOperators(tsp, params(SelectionScheme.TOURNAMENT, crossover, 2, 10));
+			benchmark.measure(name, algorithm::generations);
+		}
+	}
+
+	/* Measures an update of the instance: a city is removed and another one added, and the best tour is repaired and re-optimized */
+	private static void update(String name, int size) {
+		if (!selected(name))
+			return;
+		final TSP problem = new TSP(1000, size, SEED);
+		final LocalSearch localSearch = new LocalSearch();
+		localSearch.setProblem(problem);
+		final Configuration[] best = { localSearch.reoptimize(problem.genRandomConfiguration(), null) };
+		final Random random = new Random(SEED);
+		benchmark.measure(name, () -> {
+			int[] ids = problem.toCityIds(best[0]);
+			problem.removeCity(random.nextInt(problem.size()));
+			problem.addCity(random.nextInt(1000), random.nextInt(1000));
+			ArrayList<Integer> changedNodes = new ArrayList<Integer>();
+			best[0] = localSearch.reoptimize(problem.repairConfiguration(ids, changedNodes), changedNodes);
+			return best[0].score();
+		});
+	}
+
+	/* Measures the evaluation of a random configuration of a problem */
+	private static void scoring(String name, TSP problem) {
+		if (!selected(name))
+			return;
+		final Configuration configuration = problem.genRandomConfiguration();
+		benchmark.measure(name, () -> problem.score(configuration));
+	}
+
+	/* Parameters of the genetic algorithm (GENERATIONS stop criterion) */
+	private static String[] params(SelectionScheme selection, CrossoverScheme crossover, int replacement, int generations) {
+		return new String[] { "" + POPULATION, "" + selection.ordinal(), "" + crossover.ordinal(), "" + replacement, "0", "" + generations };
+	}
+
+	private static boolean selected(String name) {
+		return name.contains(filter);
+	}
+}
@@ -0,0 +1,47 @@
+package benchmarks;
+
+import algorithms.GeneticAlgorithm;
+import optimization.Configuration;
+import optimization.OptimizationProblem;
+
+/**
+ * Gives the benchmarks access to the operators of the genetic algorithm, so that each of
+ * them can be measured separately on a fixed population.
+ */
+public class GeneticOperators extends GeneticAlgorithm {
+
+	/** Configures the algorithm (same parameters as GeneticAlgorithm) for a problem. */
+	public GeneticOperators(OptimizationProblem problem, String[] params) {
+		setParams(params);
+		setProblem(problem);
+		initSearch();
+		initOperators();
+	}
+
+	/** Generates and evaluates a population. */
+	public Configuration[] population() {
+		Configuration[] population = generatePopulation();
+		for (Configuration individual : population)
+			evaluate(individual);
+		return population;
+	}
+
+	public Configuration[] select(Configuration[] population) {
+		return selectPopulation(population);
+	}
+
+	public void cross(Configuration[] population) {
+		crossover(population);
+	}
+
+	public void mutate(Configuration[] population) {
+		mutation(population);
+	}
+
+	/** Carries out a complete search from a new population and returns the best score. */
+	public double generations() {
+		generation = 0;
+		search();
+		return getBestSolution().score();
+	}
+}
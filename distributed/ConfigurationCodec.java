@@ -0,0 +1,88 @@
+package distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import optimization.Configuration;
+
+/**
+ * Compact binary encoding of configurations. The score is written as a double, and the
+ * values as variable-length (zigzag) integers of the difference with the previous value:
+ * good tours visit close cities consecutively, so most differences take one or two bytes.
+ */
+public final class ConfigurationCodec {
+	
+	private ConfigurationCodec(){
+	}
+	
+	/** Writes a configuration. */
+	public static void write(DataOutputStream out, Configuration configuration) throws IOException {
+		int[] values = configuration.getValues();
+		out.writeDouble(configuration.score());
+		writeVarInt(out, values.length);
+		int previous = 0;
+		for (int value: values){
+			writeVarInt(out, zigzag(value-previous));
+			previous = value;
+		}
+	}
+	
+	/** Reads a configuration. */
+	public static Configuration read(DataInputStream in) throws IOException {
+		double score = in.readDouble();
+		int length = readVarInt(in);
+		int[] values = new int[length];
+		int previous = 0;
+		for (int i=0;i<length;i++){
+			int difference = readVarInt(in);
+			previous += (difference>>>1)^-(difference&1);
+			values[i] = previous;
+		}
+		Configuration configuration = new Configuration(values);
+		configuration.setScore(score);
+		return configuration;
+	}
+	
+	/** Writes a non-negative integer using 7 bits per byte. */
+	public static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value&~0x7F)!=0){
+			out.writeByte((value&0x7F)|0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+	
+	/** Reads an integer written by writeVarInt(). */
+	public static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift=0;shift<32;shift+=7){
+			int b = in.readUnsignedByte();
+			value |= (b&0x7F)<<shift;
+			if ((b&0x80)==0)
+				return value;
+		}
+		throw new IOException("Malformed integer.");
+	}
+	
+	/**
+	 * Whether the values of a configuration received from another process are a permutation
+	 * of 0..size-1 (any other configuration may score as a short path).
+	 */
+	public static boolean isPermutation(int[] values, int size){
+		if (values.length!=size)
+			return false;
+		boolean[] seen = new boolean[size];
+		for (int value: values){
+			if (value<0 || value>=size || seen[value])
+				return false;
+			seen[value] = true;
+		}
+		return true;
+	}
+	
+	/* Maps signed integers to unsigned ones (0, -1, 1, -2... -> 0, 1, 2, 3...) */
+	private static int zigzag(int value){
+		return (value<<1)^(value>>31);
+	}
+}
@@ -0,0 +1,213 @@
+package distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+import optimization.Configuration;
+import optimization.OptimizationAlgorithm;
+
+/**
+ * Coordinator of a distributed island model. Waits for the workers (separate processes
+ * running Worker), relays the migrants of each worker to the next one in a ring, and keeps
+ * the best solution and the total number of evaluations. If a worker dies, it is removed
+ * from the ring and the search goes on with the rest. When the budget of the search is
+ * exhausted, the workers are asked to stop and send their best solutions.
+ * 
+ * Parameters: port, number of workers and, optionally, the seconds to wait for them (120).
+ */
+public class Coordinator extends OptimizationAlgorithm {
+	
+	/* Parameters */
+	private int port = 5000;
+	private int numWorkers = 2;
+	private int acceptTimeout = 120;				// Seconds
+	
+	private static final long POLL_INTERVAL = 100;	// Milliseconds between updates of the results
+	private static final long STOP_TIMEOUT = 10000;	// Milliseconds to wait for the workers after asking them to stop
+	
+	/* Connected workers, in ring order */
+	private final List<Connection> workers = new ArrayList<Connection>();
+	
+	@Override
+	public void search(){
+		initSearch();
+		workers.clear();
+		
+		// Waits for the workers
+		try (ServerSocket server = new ServerSocket(port)){
+			server.setSoTimeout(acceptTimeout*1000);
+			System.out.println("Waiting for "+numWorkers+" workers on port "+port+".");
+			while (workers.size()<numWorkers){
+				Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+				workers.add(new Connection(workers.size(), socket));
+				System.out.println("Worker "+(workers.size()-1)+" connected from "+socket.getRemoteSocketAddress()+".");
+			}
+		}
+		catch (SocketTimeoutException e){
+			System.out.println("Timeout: only "+workers.size()+" workers have connected.");
+		}
+		catch (IOException e){
+			System.out.println("The coordinator can't listen on port "+port+": "+e.getMessage());
+		}
+		
+		// Relays the messages until every worker has finished (or died)
+		Thread[] threads = new Thread[workers.size()];
+		for (int i=0;i<threads.length;i++){
+			threads[i] = new Thread(workers.get(i)::run, "worker-"+i);
+			threads[i].start();
+		}
+		boolean running = threads.length>0;
+		long stopTime = 0;
+		while (running){
+			running = false;
+			for (Thread thread: threads){
+				try{
+					thread.join(POLL_INTERVAL);
+				}
+				catch (InterruptedException e){
+					Thread.currentThread().interrupt();
+					return;
+				}
+				running |= thread.isAlive();
+			}
+			collectResults();
+			
+			// The budget of the search applies to all the workers together
+			if (running && stopTime==0 && isStopRequested()){
+				stopTime = System.currentTimeMillis();
+				for (Connection worker: workers)
+					if (worker.alive)
+						worker.send(new Report(Report.STOP, 0, 0, bestScore, new Configuration[0]));
+			}
+			else if (running && stopTime>0 && System.currentTimeMillis()-stopTime>STOP_TIMEOUT){
+				// The workers that have not finished are dropped (their threads end when their sockets are closed)
+				for (Connection worker: workers)
+					worker.close();
+			}
+		}
+		collectResults();
+		stopSearch();
+	}
+	
+	/* Total number of evaluations and furthest generation of the workers */
+	private void collectResults(){
+		long evaluations = 0;
+		int generation = 0;
+		for (Connection worker: workers){
+			evaluations += worker.evaluations;
+			generation = Math.max(generation, worker.generation);
+		}
+		evaluatedConfigurations.set(evaluations);
+		metrics.setGeneration(generation);
+	}
+	
+	/* Forwards the migrants of a worker to the next live worker of the ring */
+	private void forward(Connection from, Configuration[] migrants){
+		for (int step=1;step<workers.size();step++){
+			Connection to = workers.get((from.index+step)%workers.size());
+			if (to.alive && to.send(new Report(Report.MIGRANTS, 0, 0, bestScore, migrants)))
+				return;
+		}
+	}
+	
+	@Override
+	public void showAlgorithmStats(){
+		for (Connection worker: workers)
+			System.out.println("Worker "+worker.index+": "+(worker.finished ? "finished" : "lost")
+					+", evaluations = "+worker.evaluations+", generations = "+worker.generation);
+	}
+	
+	@Override
+	public void setParams(String[] args){
+		try{
+			port = Integer.parseInt(args[0]);
+			numWorkers = Integer.parseInt(args[1]);
+			if (args.length>2)
+				acceptTimeout = Integer.parseInt(args[2]);
+		}
+		catch (Exception e){
+			System.out.println("Using default coordinator configuration.");
+		}
+		System.out.println("Coordinator: port = "+port+", workers = "+numWorkers+", timeout = "+acceptTimeout+" s");
+	}
+	
+	/** A connected worker. */
+	private class Connection {
+		private final int index;
+		private final Socket socket;
+		private final DataInputStream in;
+		private final DataOutputStream out;
+		private volatile boolean alive = true;
+		private volatile boolean finished;
+		private volatile long evaluations;
+		private volatile int generation;
+		
+		Connection(int index, Socket socket) throws IOException {
+			this.index = index;
+			this.socket = socket;
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+		
+		/* Reads the messages of the worker until it finishes or the connection is lost */
+		void run(){
+			try{
+				while (true){
+					Report report = Report.read(in);
+					evaluations = report.evaluations;
+					generation = report.generation;
+					for (Configuration configuration: report.configurations){
+						// The solutions are checked and scored again before accepting or forwarding them
+						if (!ConfigurationCodec.isPermutation(configuration.getValues(), problem.size()))
+							throw new IOException("Configuration that is not a permutation of the cities.");
+						configuration.setScore(problem.score(configuration));
+						updateBest(configuration, configuration.score());
+					}
+					if (report.type==Report.DONE){
+						finished = true;
+						break;
+					}
+					forward(this, report.configurations);
+				}
+			}
+			catch (IOException | RuntimeException e){
+				System.out.println("Worker "+index+" has been lost ("+e.getMessage()+"). Its neighbours are now connected.");
+			}
+			close();
+		}
+		
+		/* Closes the connection (a thread blocked reading it gets an IOException) */
+		void close(){
+			alive = false;
+			try{
+				socket.close();
+			}
+			catch (IOException e){
+				// Nothing else can be done
+			}
+		}
+		
+		/* Sends a message to the worker. Returns false if it can't be sent */
+		boolean send(Report report){
+			synchronized (out){
+				try{
+					report.write(out);
+					return true;
+				}
+				catch (IOException e){
+					alive = false;
+					return false;
+				}
+			}
+		}
+	}
+}
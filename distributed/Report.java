@@ -0,0 +1,61 @@
+package distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import optimization.Configuration;
+
+/**
+ * Message exchanged between the coordinator and the workers. Workers send their progress
+ * with their migrants (MIGRANTS) and, at the end, with their best solution (DONE); the
+ * coordinator forwards the migrants to another worker, with the best score known, and
+ * asks the workers to finish (STOP) when the budget of the search is exhausted.
+ */
+public class Report {
+	
+	/* Types of message */
+	public static final byte MIGRANTS = 1;
+	public static final byte DONE = 2;
+	public static final byte STOP = 3;
+	
+	public final byte type;
+	public final long evaluations;				// Evaluations carried out by the worker
+	public final int generation;				// Generation of the worker
+	public final double bestScore;				// Best score of the sender
+	public final Configuration[] configurations;
+	
+	public Report(byte type, long evaluations, int generation, double bestScore, Configuration[] configurations){
+		this.type = type;
+		this.evaluations = evaluations;
+		this.generation = generation;
+		this.bestScore = bestScore;
+		this.configurations = configurations;
+	}
+	
+	/** Writes the message and flushes the stream. */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeByte(type);
+		out.writeLong(evaluations);
+		out.writeInt(generation);
+		out.writeDouble(bestScore);
+		ConfigurationCodec.writeVarInt(out, configurations.length);
+		for (Configuration configuration: configurations)
+			ConfigurationCodec.write(out, configuration);
+		out.flush();
+	}
+	
+	/** Reads a message. */
+	public static Report read(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		if (type!=MIGRANTS && type!=DONE && type!=STOP)
+			throw new IOException("Unknown message type "+type+".");
+		long evaluations = in.readLong();
+		int generation = in.readInt();
+		double bestScore = in.readDouble();
+		Configuration[] configurations = new Configuration[ConfigurationCodec.readVarInt(in)];
+		for (int i=0;i<configurations.length;i++)
+			configurations[i] = ConfigurationCodec.read(in);
+		return new Report(type, evaluations, generation, bestScore, configurations);
+	}
+}
@@ -0,0 +1,144 @@
+package distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import algorithms.FlatPopulation;
+import algorithms.GeneticAlgorithm;
+import optimization.Configuration;
+
+/**
+ * Island of a distributed island model: a genetic algorithm that, every few generations,
+ * sends its best individuals to the coordinator and takes the migrants that the coordinator
+ * has forwarded from other workers. If the coordinator is lost, the worker goes on alone;
+ * if the coordinator asks it to stop, it finishes and sends its best solution.
+ * 
+ * Parameters: those of GeneticAlgorithm. The coordinator, migration interval and number of
+ * migrants are given to the constructor.
+ */
+public class Worker extends GeneticAlgorithm {
+	
+	private final String host;
+	private final int port;
+	private final int migrationInterval;			// Generations between migrations
+	private final int numMigrants;					// Individuals sent in each migration
+	
+	private Socket socket;
+	private DataOutputStream out;
+	private volatile boolean connected;
+	private final ConcurrentLinkedQueue<Configuration> inbox = new ConcurrentLinkedQueue<Configuration>();
+	
+	public Worker(String host, int port, int migrationInterval, int numMigrants){
+		this.host = host;
+		this.port = port;
+		this.migrationInterval = Math.max(1, migrationInterval);
+		this.numMigrants = numMigrants;
+	}
+	
+	@Override
+	public void search(){
+		connect();
+		super.search();
+		
+		// Sends the best solution to the coordinator
+		if (connected){
+			Configuration best = getBestSolution();
+			connected = false;			// The coordinator closes the connection after this message
+			send(new Report(Report.DONE, evaluatedConfigurations.get(), generation, bestScore,
+					best==null ? new Configuration[0] : new Configuration[] { best }));
+			try{
+				socket.close();
+			}
+			catch (IOException e){
+				// Nothing else can be done
+			}
+		}
+	}
+	
+	/* Connects to the coordinator and starts receiving migrants in the background */
+	private void connect(){
+		try{
+			socket = new Socket(host, port);
+			socket.setTcpNoDelay(true);
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			connected = true;
+			System.out.println("Connected to the coordinator "+host+":"+port+".");
+			
+			Thread receiver = new Thread(() -> {
+				try{
+					while (connected){
+						Report report = Report.read(in);
+						if (report.type==Report.STOP)
+							requestStop("stopped by the coordinator");
+						// Migrants are checked and scored again, as they may come from a different instance
+						for (Configuration migrant: report.configurations)
+							if (ConfigurationCodec.isPermutation(migrant.getValues(), problem.size())){
+								migrant.setScore(problem.score(migrant));
+								inbox.add(migrant);
+							}
+					}
+				}
+				catch (IOException e){
+					lost(e);
+				}
+			}, "migrant-receiver");
+			receiver.setDaemon(true);
+			receiver.start();
+		}
+		catch (IOException e){
+			System.out.println("The coordinator "+host+":"+port+" can't be reached, searching alone.");
+		}
+	}
+	
+	@Override
+	protected void exchange(Configuration[] population){
+		if (generation%migrationInterval!=0)
+			return;
+		if (connected)
+			send(new Report(Report.MIGRANTS, evaluatedConfigurations.get(), generation, bestScore, emigrants(population, numMigrants)));
+		Configuration migrant;
+		while ((migrant = inbox.poll())!=null)
+			immigrate(population, migrant);
+	}
+	
+	@Override
+	protected void exchange(FlatPopulation population){
+		if (generation%migrationInterval!=0)
+			return;
+		if (connected)
+			send(new Report(Report.MIGRANTS, evaluatedConfigurations.get(), generation, bestScore, emigrants(population, numMigrants)));
+		Configuration migrant;
+		while ((migrant = inbox.poll())!=null)
+			immigrate(population, migrant);
+	}
+	
+	/* Sends a message to the coordinator */
+	private void send(Report report){
+		try{
+			report.write(out);
+		}
+		catch (IOException e){
+			lost(e);
+		}
+	}
+	
+	/* The connection with the coordinator has been lost: the search goes on alone */
+	private synchronized void lost(IOException e){
+		if (!connected)
+			return;
+		connected = false;
+		System.out.println("Connection with the coordinator lost ("+e.getMessage()+"), searching alone.");
+		try{
+			socket.close();
+		}
+		catch (IOException ex){
+			// Nothing else can be done
+		}
+	}
+}
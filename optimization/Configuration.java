@@ -33,6 +33,42 @@ public class Configuration implements Comparable<Configuration>, Cloneable{
 		return score;
 	}
 
+	/** Swaps the values at positions i and j. */
+	public void swap(int i, int j){
+		int aux = values[i];
+		values[i] = values[j];
+		values[j] = aux;
+	}
+	
+	/** Reverses the values between positions i and j (both included). */
+	public void reverse(int i, int j){
+		if (i>j){
+			int aux = i;
+			i = j;
+			j = aux;
+		}
+		for (;i<j;i++,j--)
+			swap(i, j);
+	}
+	
+	/** 
+	 * Moves the segment of the given length that begins at position i, so that it is
+	 * placed right before the value currently at position j (j=length places it at the end).
+	 * Position j must be outside the segment. Carried out in place with three reversals.
+	 */
+	public void moveSegment(int i, int length, int j){
+		if (j<i){
+			reverse(j, i-1);
+			reverse(i, i+length-1);
+			reverse(j, i+length-1);
+		}
+		else if (j>i+length){
+			reverse(i, i+length-1);
+			reverse(i+length, j-1);
+			reverse(i, j-1);
+		}
+	}
+
 	/** Comparator. Compares configurations by score. */
 	@Override
 	public int compareTo(Configuration otherConfiguration) {
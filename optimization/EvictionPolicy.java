@@ -0,0 +1,8 @@
+package optimization;
+
+/** Entry removed from a full FitnessCache to make room for a new one. */
+public enum EvictionPolicy {
+
+	FIFO,	// The oldest inserted entry
+	LRU;	// The least recently used entry
+}
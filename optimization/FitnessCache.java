@@ -0,0 +1,186 @@
+package optimization;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of scores of configurations, used by OptimizationAlgorithm.evaluate() to
+ * avoid scoring again configurations that have already been seen (e.g. copies of the same
+ * individual in a population). Entries are found by a polynomial hash of the values, and
+ * the values are stored too, so a hash collision never returns a wrong score.
+ *
+ * Everything is kept in primitive arrays allocated once: the values of all the entries
+ * (capacity x length ints), their hashes and scores, hash chains and the eviction order
+ * (a doubly-linked list of entries). Methods are synchronized, as evaluations may run in
+ * parallel; hashes are computed by the callers, outside the lock.
+ */
+public class FitnessCache {
+
+	/* Configuration */
+	private final int capacity;
+	private final int length;					// Number of values of each configuration
+	private final EvictionPolicy policy;
+
+	/* Entries */
+	private final int[] values;					// Values of entry e: e*length..e*length+length-1
+	private final long[] hashes;
+	private final double[] scores;
+	private int numEntries;
+
+	/* Hash table: first entry of each bucket, and next entry of the same bucket */
+	private final int[] buckets;
+	private final int[] chain;
+	private final int mask;
+
+	/* Eviction order, from the oldest (or least recently used) entry to the newest */
+	private final int[] previous, next;
+	private int oldest = -1, newest = -1;
+
+	/* Statistics */
+	private long hits, misses, evictions;
+
+	/** Creates a cache of the given number of entries for configurations of the given length. */
+	public FitnessCache(int capacity, int length, EvictionPolicy policy){
+		this.capacity = capacity;
+		this.length = length;
+		this.policy = policy;
+		values = new int[capacity*length];
+		hashes = new long[capacity];
+		scores = new double[capacity];
+		int numBuckets = Integer.highestOneBit(Math.max(1, capacity-1))<<1;
+		buckets = new int[numBuckets];
+		Arrays.fill(buckets, -1);
+		chain = new int[capacity];
+		mask = numBuckets-1;
+		previous = new int[capacity];
+		next = new int[capacity];
+	}
+
+	/** Hash of the configuration stored in values[offset..offset+length-1]. */
+	public long hash(int[] values, int offset){
+		long hash = length;
+		for (int i=offset;i<offset+length;i++)
+			hash = hash*0x100000001B3L+values[i];
+		// Spreads the bits, as the bucket is taken from the lowest ones
+		hash = (hash^(hash>>>33))*0xFF51AFD7ED558CCDL;
+		return hash^(hash>>>33);
+	}
+
+	/** Returns the score of a configuration, or NaN if it is not in the cache. */
+	public synchronized double get(int[] values, int offset, long hash){
+		int entry = find(values, offset, hash);
+		if (entry<0){
+			misses++;
+			return Double.NaN;
+		}
+		hits++;
+		if (policy==EvictionPolicy.LRU && entry!=newest){
+			unlink(entry);
+			append(entry);
+		}
+		return scores[entry];
+	}
+
+	/** Stores the score of a configuration (evicting an entry if the cache is full). */
+	public synchronized void put(int[] values, int offset, long hash, double score){
+		if (find(values, offset, hash)>=0)
+			return;			// Added meanwhile by another thread
+		int entry;
+		if (numEntries<capacity)
+			entry = numEntries++;
+		else{
+			entry = oldest;
+			unlink(entry);
+			removeFromBucket(entry);
+			evictions++;
+		}
+		System.arraycopy(values, offset, this.values, entry*length, length);
+		hashes[entry] = hash;
+		scores[entry] = score;
+		int bucket = (int) hash&mask;
+		chain[entry] = buckets[bucket];
+		buckets[bucket] = entry;
+		append(entry);
+	}
+
+	/** Removes all the entries and resets the statistics. */
+	public synchronized void clear(){
+		Arrays.fill(buckets, -1);
+		numEntries = 0;
+		oldest = newest = -1;
+		hits = misses = evictions = 0;
+	}
+
+	/* Returns the entry that contains the configuration, or -1 */
+	private int find(int[] values, int offset, long hash){
+		for (int entry=buckets[(int) hash&mask];entry>=0;entry=chain[entry])
+			if (hashes[entry]==hash && equals(entry, values, offset))
+				return entry;
+		return -1;
+	}
+
+	/* Compares the values of an entry with a configuration (rules out hash collisions) */
+	private boolean equals(int entry, int[] values, int offset){
+		int start = entry*length;
+		for (int i=0;i<length;i++)
+			if (this.values[start+i]!=values[offset+i])
+				return false;
+		return true;
+	}
+
+	private void removeFromBucket(int entry){
+		int bucket = (int) hashes[entry]&mask;
+		if (buckets[bucket]==entry){
+			buckets[bucket] = chain[entry];
+			return;
+		}
+		int e = buckets[bucket];
+		while (chain[e]!=entry)
+			e = chain[e];
+		chain[e] = chain[entry];
+	}
+
+	/* Adds an entry at the end of the eviction order */
+	private void append(int entry){
+		previous[entry] = newest;
+		next[entry] = -1;
+		if (newest>=0)
+			next[newest] = entry;
+		else
+			oldest = entry;
+		newest = entry;
+	}
+
+	/* Removes an entry from the eviction order */
+	private void unlink(int entry){
+		if (previous[entry]>=0)
+			next[previous[entry]] = next[entry];
+		else
+			oldest = next[entry];
+		if (next[entry]>=0)
+			previous[next[entry]] = previous[entry];
+		else
+			newest = previous[entry];
+	}
+
+	// Statistics
+
+	public synchronized long hits(){
+		return hits;
+	}
+
+	public synchronized long misses(){
+		return misses;
+	}
+
+	public synchronized long evictions(){
+		return evictions;
+	}
+
+	public int capacity(){
+		return capacity;
+	}
+
+	public EvictionPolicy policy(){
+		return policy;
+	}
+}
@@ -0,0 +1,373 @@
+package optimization;
+
+import java.util.Arrays;
+
+/**
+ * Held-Karp lower bound of the length of the paths of a ProblemMetric (from node size to
+ * node size+1 through all the other nodes), improved by subgradient optimization. A path
+ * plus the edge from its end back to its beginning is a tour, so the bound is that of the
+ * tours that contain this edge: a 1-tree whose special node is the beginning, with the
+ * edge to the end forced, minus the length of that edge.
+ *
+ * Node penalties pi change the length of every edge (i,j) to d(i,j)+pi[i]+pi[j], which
+ * adds 2*sum(pi) to every tour, so the minimum 1-tree minus 2*sum(pi) is a lower bound for
+ * any pi. The penalties are moved towards the nodes whose degree in the 1-tree is not 2
+ * (the step is adapted as in LKH: it doubles while the bound improves and then halves
+ * with the length of each period).
+ *
+ * Small instances use the complete graph. Larger ones only use the candidate lists of
+ * the metric, so each 1-tree costs O(n k log n). An edge (i,j) that is not a candidate of
+ * i nor of j is at least as long as half the distances from i and j to their last
+ * candidates, so adding the star of those lower bounds from the node where they are
+ * smallest (the minimum spanning tree of the complete graph of lower bounds) keeps the
+ * tree a lower bound of that of the complete graph, as long as the candidate lists hold
+ * the nearest nodes.
+ *
+ * It is meant to run in a background thread (see OptimizationAlgorithm.setLowerBound()):
+ * getBound() can be read at any time and only increases.
+ */
+public class HeldKarpBound implements Runnable {
+
+	/* Instance */
+	private final ProblemMetric metric;
+	private final int numNodes;
+	private final int root, end;					// Beginning and end of the paths
+	private final boolean dense;
+	private static final int MAX_DENSE_NODES = 1500;	// Larger instances only use the candidate lists
+	private static final int NEIGHBORS = 10;
+
+	/* Candidate graph (sparse instances): adjacency of node i in adjacency[first[i]..first[i+1]-1] */
+	private int[] first, adjacency;
+	private double[] radius;						// Half the distance from each node to its last candidate
+
+	/* Penalties and the last 1-tree */
+	private final double[] pi;
+	private final int[] degree, lastDegree;
+	private final int[] parent;
+	private final double[] key;
+	private int rootNeighbor;						// City joined to the beginning
+	private int virtualEdges;						// Lower bounds of non-candidate edges in the 1-tree
+	private boolean[] virtual;						// Whether the key of each node comes from the star
+
+	/* Heap of Prim's algorithm (sparse instances) */
+	private int[] heap, position;
+	private int heapSize;
+
+	/* Ascent */
+	private static final double INITIAL_STEP = 0.01;	// Times the average length of the edges
+	private static final double MIN_STEP = 1e-6;
+	private static final int MIN_PERIOD = 100, MAX_PERIOD = 1000;
+	private volatile double bound = Double.NEGATIVE_INFINITY;
+	private volatile int iterations;
+	private volatile boolean stopped, converged;
+
+	/** Creates the bound of the paths of a metric over size+2 nodes (it is computed by run()). */
+	public HeldKarpBound(ProblemMetric metric, int size){
+		this.metric = metric;
+		numNodes = size+2;
+		root = size;
+		end = size+1;
+		dense = numNodes<=MAX_DENSE_NODES;
+		pi = new double[numNodes];
+		degree = new int[numNodes];
+		lastDegree = new int[numNodes];
+		parent = new int[numNodes];
+		key = new double[numNodes];
+	}
+
+	/** Best lower bound found so far (negative infinity until the first 1-tree is built). */
+	public double getBound(){
+		return bound;
+	}
+
+	/** Number of 1-trees built. */
+	public int getIterations(){
+		return iterations;
+	}
+
+	/** Whether the subgradient optimization has converged (more iterations would not improve the bound). */
+	public boolean isConverged(){
+		return converged;
+	}
+
+	/** Asks run() to return after the current iteration. */
+	public void stop(){
+		stopped = true;
+	}
+
+	/** Improves the bound until the step vanishes or stop() is called. */
+	@Override
+	public void run(){
+		if (numNodes<=3){
+			// At most one city: the bound is the length of the only path
+			bound = numNodes==2 ? metric.distance(root, end) : metric.distance(root, 0)+metric.distance(0, end);
+			converged = true;
+			return;
+		}
+		if (!dense)
+			buildCandidateGraph();
+		double best = oneTree();
+		bound = best;
+		double step = INITIAL_STEP*(best+metric.distance(root, end))/numNodes;
+		double minStep = MIN_STEP*step/INITIAL_STEP;
+		int period = Math.min(MAX_PERIOD, Math.max(MIN_PERIOD, numNodes/2));
+		boolean initialPhase = true;
+		System.arraycopy(degree, 0, lastDegree, 0, numNodes);
+		while (!stopped && step>minStep && period>0){
+			for (int p=1;p<=period && !stopped;p++){
+				if (isTour()){
+					converged = true;
+					return;
+				}
+				// Moves the penalties along the subgradient (smoothed with the previous one)
+				for (int node=0;node<numNodes;node++)
+					if (node!=root){
+						pi[node] += step*(0.7*(degree[node]-2)+0.3*(lastDegree[node]-2));
+						lastDegree[node] = degree[node];
+					}
+				double value = oneTree();
+				if (value>best){
+					best = value;
+					bound = best;
+					if (initialPhase)
+						step *= 2;
+					if (p==period)
+						period = Math.min(MAX_PERIOD, 2*period);
+				}
+				else if (initialPhase && p>period/2){
+					initialPhase = false;
+					p = 0;
+					step = 3*step/4;
+				}
+			}
+			step /= 2;
+			period /= 2;
+		}
+		converged = !stopped;
+	}
+
+	/* Whether the last 1-tree is a tour (then it is an optimal one) */
+	private boolean isTour(){
+		if (virtualEdges>0)
+			return false;
+		for (int node=0;node<numNodes;node++)
+			if (node!=root && degree[node]!=2)
+				return false;
+		return true;
+	}
+
+	/*
+	 * Builds the minimum 1-tree with the current penalties, stores the degrees of its nodes
+	 * and returns the bound it gives.
+	 */
+	private double oneTree(){
+		Arrays.fill(degree, 0);
+		virtualEdges = 0;
+		double length = dense ? denseTree() : sparseTree();
+		for (int node=0;node<numNodes;node++)
+			if (node!=root && parent[node]>=0){
+				degree[node]++;
+				degree[parent[node]]++;
+			}
+		// The edges of the beginning: the forced one to the end, and the shortest one to a city
+		length += metric.distance(root, end)+pi[end];
+		degree[end]++;
+		length += rootEdge();
+		degree[rootNeighbor]++;
+		double sum = 0;
+		for (int node=0;node<numNodes;node++)
+			sum += pi[node];
+		iterations++;
+		return length-2*sum-metric.distance(root, end);
+	}
+
+	/* Prim's algorithm over the complete graph without the beginning; returns the length of the tree */
+	private double denseTree(){
+		boolean[] inTree = new boolean[numNodes];
+		Arrays.fill(key, Double.POSITIVE_INFINITY);
+		Arrays.fill(parent, -1);
+		inTree[root] = true;
+		key[end] = 0;
+		double length = 0;
+		for (int added=1;added<numNodes;added++){
+			int node = -1;
+			for (int other=0;other<numNodes;other++)
+				if (!inTree[other] && (node<0 || key[other]<key[node]))
+					node = other;
+			inTree[node] = true;
+			length += key[node];
+			for (int other=0;other<numNodes;other++)
+				if (!inTree[other]){
+					double weight = metric.distance(node, other)+pi[node]+pi[other];
+					if (weight<key[other]){
+						key[other] = weight;
+						parent[other] = node;
+					}
+				}
+		}
+		return length;
+	}
+
+	/*
+	 * Prim's algorithm over the candidate edges without the beginning, plus the star of
+	 * lower bounds of the other edges (see the class comment); returns the length of the tree.
+	 */
+	private double sparseTree(){
+		int center = -1;
+		for (int node=0;node<numNodes;node++)
+			if (node!=root && (center<0 || virtualWeight(node)<virtualWeight(center)))
+				center = node;
+		// The center is the first node of the tree, so the rest begin with their edge of the star
+		heapSize = 0;
+		for (int node=0;node<numNodes;node++){
+			position[node] = -1;
+			if (node==root || node==center)
+				continue;
+			key[node] = virtualWeight(node)+virtualWeight(center);
+			parent[node] = center;
+			virtual[node] = true;
+			position[node] = heapSize;
+			heap[heapSize++] = node;
+		}
+		for (int i=heapSize/2-1;i>=0;i--)
+			siftDown(i);
+		parent[center] = -1;
+		double length = 0;
+		int node = center;
+		while (true){
+			for (int i=first[node];i<first[node+1];i++){
+				int other = adjacency[i];
+				if (position[other]<0)
+					continue;
+				double weight = metric.distance(node, other)+pi[node]+pi[other];
+				if (weight<key[other]){
+					key[other] = weight;
+					parent[other] = node;
+					virtual[other] = false;
+					siftUp(position[other]);
+				}
+			}
+			if (heapSize==0)
+				break;
+			node = pop();
+			length += key[node];
+			if (virtual[node])
+				virtualEdges++;
+		}
+		return length;
+	}
+
+	/* Penalized length of the shortest edge from the beginning to a city; sets rootNeighbor */
+	private double rootEdge(){
+		double shortest = Double.POSITIVE_INFINITY;
+		if (dense){
+			for (int city=0;city<root;city++){
+				double weight = metric.distance(root, city)+pi[city];
+				if (weight<shortest){
+					shortest = weight;
+					rootNeighbor = city;
+				}
+			}
+			return shortest;
+		}
+		// Lower bounds of the edges to the cities that are not candidates
+		for (int city=0;city<root;city++){
+			double weight = radius[root]+virtualWeight(city);
+			if (weight<shortest){
+				shortest = weight;
+				rootNeighbor = city;
+			}
+		}
+		boolean lowerBound = true;
+		for (int i=first[root];i<first[root+1];i++){
+			int city = adjacency[i];
+			if (city==end)
+				continue;
+			double weight = metric.distance(root, city)+pi[city];
+			if (weight<shortest){
+				shortest = weight;
+				rootNeighbor = city;
+				lowerBound = false;
+			}
+		}
+		if (lowerBound)
+			virtualEdges++;
+		return shortest;
+	}
+
+	/* Half of the lower bound of the penalized length of the edges of a node that are not candidates */
+	private double virtualWeight(int node){
+		return radius[node]+pi[node];
+	}
+
+	/* Builds the (symmetric) adjacency lists of the candidate graph */
+	private void buildCandidateGraph(){
+		int[] neighbors = metric.getNeighbors(NEIGHBORS);
+		int k = neighbors.length/numNodes;
+		first = new int[numNodes+1];
+		for (int node=0;node<numNodes;node++)
+			for (int j=0;j<k;j++){
+				first[node+1]++;
+				first[neighbors[node*k+j]+1]++;
+			}
+		for (int node=0;node<numNodes;node++)
+			first[node+1] += first[node];
+		adjacency = new int[first[numNodes]];
+		int[] next = Arrays.copyOf(first, numNodes);
+		radius = new double[numNodes];
+		for (int node=0;node<numNodes;node++){
+			for (int j=0;j<k;j++){
+				int other = neighbors[node*k+j];
+				adjacency[next[node]++] = other;
+				adjacency[next[other]++] = node;
+			}
+			radius[node] = metric.distance(node, neighbors[node*k+k-1])/2;
+		}
+		heap = new int[numNodes];
+		position = new int[numNodes];
+		virtual = new boolean[numNodes];
+	}
+
+	// Binary heap of the nodes out of the tree, by key
+
+	private int pop(){
+		int top = heap[0];
+		position[top] = -1;
+		if (--heapSize>0){
+			heap[0] = heap[heapSize];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	private void siftUp(int i){
+		int node = heap[i];
+		while (i>0){
+			int up = (i-1)/2;
+			if (key[heap[up]]<=key[node])
+				break;
+			heap[i] = heap[up];
+			position[heap[i]] = i;
+			i = up;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+
+	private void siftDown(int i){
+		int node = heap[i];
+		while (2*i+1<heapSize){
+			int child = 2*i+1;
+			if (child+1<heapSize && key[heap[child+1]]<key[heap[child]])
+				child++;
+			if (key[heap[child]]>=key[node])
+				break;
+			heap[i] = heap[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+}
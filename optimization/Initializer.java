@@ -0,0 +1,11 @@
+package optimization;
+
+/** Method used to build the initial configurations of a search (see OptimizationAlgorithm.initialConfiguration()). */
+public enum Initializer {
+
+	RANDOM,				// Random permutation
+	NEAREST_NEIGHBOR,	// Always goes to the nearest unvisited city
+	GREEDY_EDGE,		// Adds the shortest edges that keep a path, then joins the fragments
+	HILBERT,			// Order of the cities along a Hilbert curve
+	CHRISTOFIDES;		// Spanning tree plus a (greedy) matching of its odd nodes, shortcut
+}
@@ -1,19 +1,102 @@
 package optimization;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import reporting.ProgressReporter;
+import reporting.SearchMetrics;
+import utils.RandomStreams;
+
 /** All classes implementing an optimization algorithm must extend this one. */
 public abstract class OptimizationAlgorithm {
 	
 	/* Problem being solved */
 	protected OptimizationProblem problem;
 	
-	/* Best solution. */
-	protected Configuration bestSolution;
+	/* Best solution. Evaluations may run in parallel, so it is only updated under bestLock. */
+	protected volatile Configuration bestSolution;
 	
 	/* Best score */
-	protected double bestScore;
+	protected volatile double bestScore;
+	private final Object bestLock = new Object();
 	
 	/* Number of evaluations carried out during the search. */
-	protected long evaluatedConfigurations;
+	protected final AtomicLong evaluatedConfigurations = new AtomicLong();
+	
+	/* Number of moves evaluated incrementally (delta evaluations). */
+	protected final LongAdder deltaEvaluations = new LongAdder();
+	
+	/* Parallel evaluation (see evaluateAll()). */
+	protected int evaluationThreads = 1;
+	private ForkJoinPool evaluationPool;
+	private static final int EVALUATION_BATCH = 16;  // Configurations evaluated by each task
+	
+	/* Budget of the search (see isStopRequested()). */
+	private long timeLimit;							// Nanoseconds (0: no limit)
+	private long maxEvaluations;					// Full and delta evaluations (0: no limit)
+	private double targetScore = Double.NEGATIVE_INFINITY;
+	private long deadline;
+	private volatile String stopReason;				// Why the search has to stop before its end, or null
+	private int checkInterval, checkCountdown;		// Calls to isStopRequested() between checks of the budget
+	private long lastCheck;
+	private static final long CHECK_PERIOD = 1000000;	// Nanoseconds between checks of the budget (approximately)
+	private static final int MAX_CHECK_INTERVAL = 1<<16;
+	
+	/* Lower bound of the score, computed in the background (see setLowerBound()), or null. */
+	private boolean lowerBoundEnabled;
+	private double targetGap = -1;					// Relative gap to the bound at which the search stops (negative: none)
+	private HeldKarpBound lowerBound;
+	
+	/* Initial configurations (see initialConfiguration()). */
+	protected Initializer initializer = Initializer.RANDOM;
+	private Configuration initialTour;				// Built by the initializer in the current search
+	private static final int PERTURBATIONS = 3;		// Random reversals applied to the copies of the initial tour
+	private static final int MAX_PERTURBATION = 32;	// Maximum length of the reversed segments
+	
+	/* Cache of scores (see setFitnessCache()), or null. */
+	private int cacheCapacity;
+	private EvictionPolicy cachePolicy;
+	private FitnessCache cache;
+	private int cacheLength;						// Size of the problem when the cache was created
+	
+	/* Counters and gauges of the search, sampled by the progress reporter (if any). */
+	protected final SearchMetrics metrics = new SearchMetrics(evaluatedConfigurations::get, deltaEvaluations::sum);
+	private ProgressReporter reporter;
+	
+	/* Checkpoints (see checkpoint() and resume()). */
+	private String checkpointFile;
+	private long checkpointInterval;				// Milliseconds between checkpoints
+	private long lastCheckpoint;
+	private String resumeFile;
+	private ExecutorService checkpointWriter;		// Writes the checkpoints in the background
+	private Future<?> pendingCheckpoint;
+	private static final int CHECKPOINT_MAGIC = 0x54535043;
+	private static final int CHECKPOINT_VERSION = 1;
 	
 	/* Search time. */
 	protected long searchTime;
@@ -37,19 +120,301 @@ public abstract class OptimizationAlgorithm {
 	 * its score, and increments the number of evaluated configurations.
 	 */
 	protected double evaluate(Configuration configuration){
-		double score = problem.score(configuration);
+		double score;
+		if (cache!=null){
+			int[] values = configuration.getValues();
+			long hash = cache.hash(values, 0);
+			score = cache.get(values, 0, hash);
+			if (Double.isNaN(score)){
+				score = problem.score(configuration);
+				cache.put(values, 0, hash, score);
+			}
+		}
+		else
+			score = problem.score(configuration);
 		configuration.setScore(score);
-		evaluatedConfigurations++;
 		// Checks if it is the best configuration.
-		if (score<bestScore){
-			bestSolution = configuration.clone();
-			bestScore = score;
-		}
-		// Prints progress
-		if ((evaluatedConfigurations<1000) && (evaluatedConfigurations%100==0))
-			System.out.println("\tEvaluation "+evaluatedConfigurations+". Best score: "+bestScore);		
-		if (evaluatedConfigurations%1000==0)
-			System.out.println("\tEvaluation "+evaluatedConfigurations+". Best score: "+bestScore);
+		updateBest(configuration, score);
+		evaluatedConfigurations.incrementAndGet();
+		return score;
+	}
+	
+	/** 
+	 * Evaluates a set of configurations. If more than one evaluation thread has been
+	 * set, the configurations are evaluated in parallel.
+	 */
+	protected void evaluateAll(Configuration[] configurations){
+		if (evaluationPool==null){
+			for (Configuration configuration: configurations)
+				evaluate(configuration);
+		}
+		else
+			evaluationPool.invoke(new EvaluationTask(0, configurations.length, i -> evaluate(configurations[i])));
+	}
+	
+	/** 
+	 * Evaluates the configuration stored in values[offset..offset+size-1]. Increments the
+	 * number of evaluations and keeps track of the best configuration, as evaluate().
+	 */
+	protected double evaluate(int[] values, int offset){
+		double score;
+		if (cache!=null){
+			long hash = cache.hash(values, offset);
+			score = cache.get(values, offset, hash);
+			if (Double.isNaN(score)){
+				score = problem.score(values, offset);
+				cache.put(values, offset, hash, score);
+			}
+		}
+		else
+			score = problem.score(values, offset);
+		if (score<bestScore)
+			improveBest(score, () -> new Configuration(Arrays.copyOfRange(values, offset, offset+problem.size())));
+		evaluatedConfigurations.incrementAndGet();
+		return score;
+	}
+	
+	/** 
+	 * Evaluates count configurations stored consecutively in values, and stores their
+	 * scores. Runs in parallel if more than one evaluation thread has been set.
+	 */
+	protected void evaluateAll(int[] values, double[] scores, int count){
+		int size = problem.size();
+		if (evaluationPool==null){
+			for (int i=0;i<count;i++)
+				scores[i] = evaluate(values, i*size);
+		}
+		else
+			evaluationPool.invoke(new EvaluationTask(0, count, i -> scores[i] = evaluate(values, i*size)));
+	}
+	
+	/** Sets the number of threads used by evaluateAll(). */
+	public void setEvaluationThreads(int threads){
+		evaluationThreads = Math.max(1, threads);
+	}
+	
+	/** 
+	 * Sets the reporter that samples the progress of the search in the background 
+	 * (null for none). It is started by initSearch() and stopped by stopSearch().
+	 */
+	public void setProgressReporter(ProgressReporter reporter){
+		this.reporter = reporter;
+	}
+	
+	/** Whether the algorithm can be checkpointed and resumed (it implements writeState() and readState()). */
+	public boolean supportsCheckpoints(){
+		return false;
+	}
+	
+	/** Sets the file where the state of the search is saved every interval seconds. */
+	public void setCheckpoint(String fileName, double interval){
+		checkpointFile = fileName;
+		checkpointInterval = (long) (interval*1000);
+	}
+	
+	/** Sets the checkpoint file from which the search is resumed. */
+	public void setResume(String fileName){
+		resumeFile = fileName;
+	}
+	
+	/** Writes the state of the algorithm (called by checkpoint()). */
+	protected void writeState(DataOutputStream out) throws IOException {
+	}
+	
+	/** Reads the state written by writeState() (called by resume()). */
+	protected void readState(DataInputStream in) throws IOException {
+	}
+	
+	/** 
+	 * Must be called by the algorithms at points where the search can be resumed. If the
+	 * checkpoint interval has elapsed, the state of the search is copied and then written
+	 * in the background: first in a temporary file, which then replaces the checkpoint
+	 * file atomically, so a crash never leaves a half-written checkpoint.
+	 */
+	protected void checkpoint(){
+		if (checkpointFile==null)
+			return;
+		long now = System.currentTimeMillis();
+		if (now-lastCheckpoint<checkpointInterval)
+			return;
+		// If the previous checkpoint is still being written, this one is skipped
+		if (pendingCheckpoint!=null && !pendingCheckpoint.isDone())
+			return;
+		lastCheckpoint = now;
+		
+		byte[] state;
+		try{
+			state = saveState();
+		}
+		catch (IOException e){
+			System.out.println("The checkpoint can't be created: "+e.getMessage());
+			return;
+		}
+		if (checkpointWriter==null)
+			checkpointWriter = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "checkpoint-writer");
+				thread.setDaemon(true);
+				return thread;
+			});
+		pendingCheckpoint = checkpointWriter.submit(() -> writeCheckpoint(state));
+	}
+	
+	/* Serializes the state of the search: common data, state of the algorithm and checksum */
+	private byte[] saveState() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(CHECKPOINT_MAGIC);
+		out.writeInt(CHECKPOINT_VERSION);
+		out.writeUTF(getClass().getName());
+		out.writeInt(problem.size());
+		out.writeLong(evaluatedConfigurations.get());
+		out.writeLong(deltaEvaluations.sum());
+		out.writeLong(System.currentTimeMillis()-searchTime);
+		out.writeDouble(bestScore);
+		writeValues(out, bestSolution==null ? null : bestSolution.getValues());
+		writeState(out);
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeLong(crc.getValue());
+		out.flush();
+		return bytes.toByteArray();
+	}
+	
+	/* Writes a checkpoint in a temporary file and moves it over the checkpoint file */
+	private void writeCheckpoint(byte[] state){
+		Path target = Paths.get(checkpointFile);
+		Path temporary = Paths.get(checkpointFile+".tmp");
+		try{
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, 
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+				ByteBuffer buffer = ByteBuffer.wrap(state);
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+				channel.force(true);
+			}
+			try{
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException e){
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException e){
+			System.out.println("The checkpoint can't be written: "+e.getMessage());
+		}
+	}
+	
+	/** 
+	 * Must be called by the algorithms after initSearch(). If a checkpoint file has been
+	 * set, restores the state of the search and returns true (the algorithm then goes
+	 * on from that state); otherwise, returns false. 
+	 */
+	protected boolean resume(){
+		if (resumeFile==null)
+			return false;
+		try{
+			byte[] data = Files.readAllBytes(Paths.get(resumeFile));
+			if (data.length<8)
+				throw new IOException("the file is truncated");
+			CRC32 crc = new CRC32();
+			crc.update(data, 0, data.length-8);
+			if (crc.getValue()!=ByteBuffer.wrap(data, data.length-8, 8).getLong())
+				throw new IOException("the file is corrupted");
+			
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length-8));
+			if (in.readInt()!=CHECKPOINT_MAGIC || in.readInt()!=CHECKPOINT_VERSION)
+				throw new IOException("it is not a checkpoint file");
+			String algorithmName = in.readUTF();
+			if (!algorithmName.equals(getClass().getName()))
+				throw new IOException("it was written by "+algorithmName);
+			if (in.readInt()!=problem.size())
+				throw new IOException("it was written for a problem of a different size");
+			evaluatedConfigurations.set(in.readLong());
+			deltaEvaluations.reset();
+			deltaEvaluations.add(in.readLong());
+			searchTime = System.currentTimeMillis()-in.readLong();
+			bestScore = in.readDouble();
+			int[] values = readValues(in);
+			if (values!=null){
+				bestSolution = new Configuration(values);
+				bestSolution.setScore(bestScore);
+				metrics.improvement(bestScore);
+			}
+			readState(in);
+		}
+		catch (IOException e){
+			System.out.println("The search can't be resumed from "+resumeFile+": "+e.getMessage()+".");
+			System.exit(-1);
+		}
+		System.out.println("Resuming the search from "+resumeFile+" ("+evaluatedConfigurations+" evaluations).");
+		return true;
+	}
+	
+	/** Writes an array of values (or null) in a checkpoint. */
+	protected static void writeValues(DataOutputStream out, int[] values) throws IOException {
+		out.writeInt(values==null ? -1 : values.length);
+		if (values!=null)
+			for (int value: values)
+				out.writeInt(value);
+	}
+	
+	/** Reads an array of values written by writeValues(). */
+	protected static int[] readValues(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length<0)
+			return null;
+		int[] values = new int[length];
+		for (int i=0;i<length;i++)
+			values[i] = in.readInt();
+		return values;
+	}
+	
+	/** Stores the configuration as the best one if it improves the best score (thread-safe). */
+	protected void updateBest(Configuration configuration, double score){
+		if (score<bestScore)
+			improveBest(score, configuration::clone);
+	}
+	
+	/* Stores a copy of a configuration (only built if it is still the best one) with its score as the best one */
+	private void improveBest(double score, Supplier<Configuration> copy){
+		synchronized (bestLock){
+			if (score<bestScore){
+				bestSolution = copy.get();
+				bestSolution.setScore(score);
+				bestScore = score;
+				metrics.improvement(score);
+				if (score<=targetScore)
+					requestStop("target score reached");
+			}
+		}
+	}
+	
+	/** Returns the change of score of swapping positions i and j, without applying the move. */
+	protected double evaluateSwap(Configuration configuration, int i, int j){
+		deltaEvaluations.increment();
+		return problem.swapDelta(configuration, i, j);
+	}
+	
+	/** Returns the change of score of reversing positions i..j, without applying the move. */
+	protected double evaluateReversal(Configuration configuration, int i, int j){
+		deltaEvaluations.increment();
+		return problem.reversalDelta(configuration, i, j);
+	}
+	
+	/** Returns the change of score of moving a segment (or-opt), without applying the move. */
+	protected double evaluateInsertion(Configuration configuration, int i, int length, int j){
+		deltaEvaluations.increment();
+		return problem.insertionDelta(configuration, i, length, j);
+	}
+	
+	/** 
+	 * Must be called after applying a move to a configuration whose score was known. 
+	 * Updates its score with the change given and checks if it is the best configuration.
+	 */
+	protected double acceptMove(Configuration configuration, double delta){
+		double score = configuration.score()+delta;
+		configuration.setScore(score);
+		updateBest(configuration, score);
 		return score;
 	}
 	
@@ -57,15 +422,182 @@ public abstract class OptimizationAlgorithm {
 	protected void initSearch(){
 		bestSolution = null;
 		bestScore = Double.POSITIVE_INFINITY;
-		evaluatedConfigurations = 0;
+		evaluatedConfigurations.set(0);
+		deltaEvaluations.reset();
+		if (evaluationThreads>1)
+			evaluationPool = new ForkJoinPool(evaluationThreads);
+		if (cacheCapacity>0){
+			// A new cache, as the problem may have changed between searches
+			if (cache==null || cache.capacity()!=cacheCapacity || cache.policy()!=cachePolicy || cacheLength!=problem.size())
+				cache = new FitnessCache(cacheCapacity, problem.size(), cachePolicy);
+			else
+				cache.clear();
+			cacheLength = problem.size();
+		}
+		metrics.reset();
+		if (reporter!=null)
+			reporter.start(metrics);
 		searchTime = System.currentTimeMillis();
+		lastCheckpoint = searchTime;
+		stopReason = null;
+		initialTour = null;
+		lowerBound = null;
+		if (lowerBoundEnabled && problem instanceof ProblemMetric){
+			lowerBound = new HeldKarpBound((ProblemMetric) problem, problem.size());
+			Thread thread = new Thread(lowerBound, "lower-bound");
+			thread.setDaemon(true);
+			thread.start();
+		}
+		lastCheck = System.nanoTime();
+		deadline = lastCheck+timeLimit;
+		checkInterval = 1;
+		checkCountdown = 1;
 	}
 	
 	/** Finishes the search. */
 	protected void stopSearch(){
+		if (evaluationPool!=null){
+			evaluationPool.shutdown();
+			evaluationPool = null;
+		}
+		if (reporter!=null)
+			reporter.stop();
+		if (lowerBound!=null)
+			lowerBound.stop();
+		if (checkpointWriter!=null){
+			// Waits for the last checkpoint
+			try{
+				pendingCheckpoint.get();
+			}
+			catch (InterruptedException | ExecutionException e){
+				System.out.println("The last checkpoint may not have been written.");
+			}
+			checkpointWriter.shutdown();
+			checkpointWriter = null;
+		}
 		searchTime = (System.currentTimeMillis()-searchTime)/1000;
 	}
 	
+	/** Sets the method used to build the initial configurations. */
+	public void setInitializer(Initializer initializer){
+		this.initializer = initializer;
+	}
+	
+	/** 
+	 * Returns an initial configuration built with the initializer of the algorithm (a
+	 * random one by default). Constructive methods are deterministic, so the first call of
+	 * a search builds the configuration and the following ones return copies of it with a
+	 * few random segments reversed, so that populations keep some diversity.
+	 */
+	protected Configuration initialConfiguration(){
+		if (initializer==Initializer.RANDOM)
+			return problem.genRandomConfiguration();
+		if (initialTour==null){
+			initialTour = problem.genConfiguration(initializer);
+			return initialTour.clone();
+		}
+		Configuration configuration = initialTour.clone();
+		int size = configuration.getValues().length;
+		Random random = RandomStreams.current();
+		for (int i=0;i<PERTURBATIONS && size>1;i++){
+			int from = random.nextInt(size-1);
+			configuration.reverse(from, Math.min(size-1, from+1+random.nextInt(MAX_PERTURBATION)));
+		}
+		return configuration;
+	}
+	
+	/** Stops the search after the given seconds of wall-clock time (0: no limit). */
+	public void setTimeLimit(double seconds){
+		timeLimit = (long) (seconds*1e9);
+	}
+	
+	/** Stops the search after the given number of evaluations, full or delta ones (0: no limit). */
+	public void setMaxEvaluations(long evaluations){
+		maxEvaluations = evaluations;
+	}
+	
+	/** Stops the search as soon as a configuration with this score or lower is found. */
+	public void setTargetScore(double score){
+		targetScore = score;
+	}
+	
+	/** 
+	 * Computes a lower bound of the score while the search runs (only for problems that
+	 * implement ProblemMetric), in a background thread (see HeldKarpBound). showResults()
+	 * then shows the gap between the best score and the bound.
+	 */
+	public void setLowerBound(boolean enabled){
+		lowerBoundEnabled = enabled;
+	}
+	
+	/** 
+	 * Stops the search when the best score is within the given gap of the lower bound
+	 * (e.g. 0.01 for 1%). It enables the lower bound.
+	 */
+	public void setTargetGap(double gap){
+		targetGap = gap;
+		lowerBoundEnabled = true;
+	}
+	
+	/** Returns the lower bound of the score computed so far (negative infinity if none). */
+	public double getLowerBound(){
+		return lowerBound==null ? Double.NEGATIVE_INFINITY : lowerBound.getBound();
+	}
+	
+	/** Returns the relative gap between the best score and the lower bound (infinity if unknown). */
+	public double getGap(){
+		double bound = getLowerBound();
+		if (bestSolution==null || bound<=0)
+			return Double.POSITIVE_INFINITY;
+		return Math.max(0, (bestScore-bound)/bound);
+	}
+	
+	/** Asks the search to stop as soon as possible (e.g. from another thread). */
+	public void requestStop(String reason){
+		if (stopReason==null)
+			stopReason = reason;
+	}
+	
+	/** 
+	 * Returns true if the search has to stop: its time or evaluations are exhausted, the
+	 * target score has been reached or requestStop() has been called. Algorithms call it
+	 * in their main loops, so it is cheap: the clock and the counters are only read every
+	 * few calls, adapting their number so that they are read about once per millisecond.
+	 */
+	protected boolean isStopRequested(){
+		if (stopReason!=null)
+			return true;
+		if (--checkCountdown>0)
+			return false;
+		long now = System.nanoTime();
+		if (now-lastCheck<CHECK_PERIOD/2 && checkInterval<MAX_CHECK_INTERVAL)
+			checkInterval <<= 1;
+		else if (now-lastCheck>2*CHECK_PERIOD && checkInterval>1)
+			checkInterval >>= 1;
+		checkCountdown = checkInterval;
+		lastCheck = now;
+		if (timeLimit>0 && now>=deadline)
+			requestStop("time limit");
+		else if (maxEvaluations>0 && evaluatedConfigurations.get()+deltaEvaluations.sum()>=maxEvaluations)
+			requestStop("evaluation budget exhausted");
+		else if (targetGap>=0 && getGap()<=targetGap)
+			requestStop("optimality gap reached");
+		return stopReason!=null;
+	}
+	
+	/** 
+	 * Keeps the scores of up to capacity configurations, so that repeated configurations
+	 * are not scored again (0 disables the cache). Each entry stores a copy of the values,
+	 * so the memory used is about capacity x size x 4 bytes. Evaluations are counted
+	 * whether or not they are found in the cache.
+	 */
+	public void setFitnessCache(int capacity, EvictionPolicy policy){
+		cacheCapacity = capacity;
+		cachePolicy = policy;
+		if (capacity<=0)
+			cache = null;
+	}
+	
 	/** Sets the problem. */
 	public void setProblem(OptimizationProblem problem){
 		this.problem = problem;
@@ -76,10 +608,26 @@ public abstract class OptimizationAlgorithm {
 		System.out.println("\nRESULTS:");
 		System.out.println("Best Score: "+bestScore);
 		System.out.println("Number of evaluations: "+evaluatedConfigurations);
+		if (deltaEvaluations.sum()>0)
+			System.out.println("Number of delta evaluations: "+deltaEvaluations.sum());
 		System.out.println("Search time: "+searchTime + " seconds.");
+		if (stopReason!=null)
+			System.out.println("Stopped early: "+stopReason+".");
+		if (lowerBound!=null)
+			System.out.println("Lower bound (Held-Karp): "+lowerBound.getBound()+", gap "+String.format(Locale.ROOT, "%.3f", 100*getGap())
+					+"% ("+lowerBound.getIterations()+" 1-trees"+(lowerBound.isConverged() ? "" : ", not converged")+").");
+		if (cache!=null){
+			long hits = cache.hits(), misses = cache.misses();
+			System.out.println("Fitness cache: "+hits+" hits, "+misses+" misses ("+(hits+misses>0 ? 100*hits/(hits+misses) : 0)+"% hits), "+cache.evictions()+" evictions.");
+		}
 		showAlgorithmStats();
 	}
 
+	/** Returns the counters and gauges of the search. */
+	public SearchMetrics getMetrics(){
+		return metrics;
+	}
+
 	/** Returns the best solution. */
 	public Configuration getBestSolution(){
 		return bestSolution;
@@ -102,6 +650,30 @@ public abstract class OptimizationAlgorithm {
 		return null;
 	}
 
+	/** Fork-join task that evaluates a range of configurations, splitting it in halves. */
+	private static class EvaluationTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from, to;
+		private final IntConsumer evaluation;
+		
+		EvaluationTask(int from, int to, IntConsumer evaluation){
+			this.from = from;
+			this.to = to;
+			this.evaluation = evaluation;
+		}
+		
+		@Override
+		protected void compute(){
+			if (to-from<=EVALUATION_BATCH){
+				for (int i=from;i<to;i++)
+					evaluation.accept(i);
+				return;
+			}
+			int middle = (from+to)>>>1;
+			invokeAll(new EvaluationTask(from, middle, evaluation), new EvaluationTask(middle, to, evaluation));
+		}
+	}
+
 	public void showSearchStats() {
 		// TODO Auto-generated method stub
 		
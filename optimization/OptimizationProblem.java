@@ -19,13 +19,58 @@ public abstract class OptimizationProblem {
 	/**  Evaluates a configuration and returns its score. */
 	public abstract double score(Configuration configuration);
 	
+	/** 
+	 * Evaluates the configuration stored in values[offset..offset+size-1] (used by algorithms
+	 * that keep many configurations in a single array). By default, it copies the values.
+	 */
+	public double score(int[] values, int offset){
+		return score(new Configuration(java.util.Arrays.copyOfRange(values, offset, offset+size)));
+	}
+	
 	/** Generates a random configuration */
 	public abstract Configuration genRandomConfiguration();
 	
+	/** 
+	 * Builds a configuration with a constructive method. Problems that do not implement
+	 * the method generate a random configuration.
+	 */
+	public Configuration genConfiguration(Initializer initializer){
+		return genRandomConfiguration();
+	}
+	
 	/** Sets the parameters */
 	public abstract void setParams(String[] args);
 	
 
+	// Incremental evaluation of moves. These default implementations apply the move to
+	// a copy of the configuration and score it again; problems that can compute the
+	// change of score in constant time should override them.
+	
+	/** Returns the change of score caused by swapping the values at positions i and j. */
+	public double swapDelta(Configuration configuration, int i, int j){
+		Configuration neighbor = configuration.clone();
+		neighbor.swap(i, j);
+		return score(neighbor)-score(configuration);
+	}
+	
+	/** Returns the change of score caused by reversing the values between positions i and j. */
+	public double reversalDelta(Configuration configuration, int i, int j){
+		Configuration neighbor = configuration.clone();
+		neighbor.reverse(i, j);
+		return score(neighbor)-score(configuration);
+	}
+	
+	/** 
+	 * Returns the change of score caused by moving the segment of the given length that
+	 * begins at position i right before position j (see Configuration.moveSegment()).
+	 */
+	public double insertionDelta(Configuration configuration, int i, int length, int j){
+		Configuration neighbor = configuration.clone();
+		neighbor.moveSegment(i, length, j);
+		return score(neighbor)-score(configuration);
+	}
+	
+
 	// Utilities
 	
 	/** Creates an instance of a problem given its name. */
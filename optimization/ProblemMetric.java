@@ -0,0 +1,22 @@
+package optimization;
+
+/** 
+ * This interface must be implemented by problems whose configurations are paths over a set
+ * of nodes with a distance between every pair of them (e.g. the TSP). Algorithms can use it
+ * to build solutions edge by edge. Nodes 0..size-1 are the values of the configuration, node
+ * size is the fixed beginning of the path and node size+1 its fixed end.
+ */
+public interface ProblemMetric {
+	
+	/** Returns the distance between two nodes. */
+	public double distance(int from, int to);
+	
+	/** 
+	 * Returns the candidate lists: the k nearest nodes of every node (including the
+	 * beginning and the end of the path), in a flat array where the neighbours of node i
+	 * are stored, sorted by distance, in positions i*k to i*k+k-1. If there are not enough
+	 * nodes, k is reduced, so the actual value is the length of the array divided by size+2.
+	 */
+	public int[] getNeighbors(int k);
+	
+}
@@ -0,0 +1,13 @@
+package problems.tsp;
+
+/**
+ * Distance functions of the TSPLIB instances (see TSPLibReader). Coordinates are
+ * rounded as defined by TSPLIB, so scores match the published optimal tours.
+ */
+public enum EdgeWeightType {
+	EUC_2D,		// Euclidean, rounded to the nearest integer
+	CEIL_2D,	// Euclidean, rounded up
+	MAN_2D,		// Manhattan, rounded to the nearest integer
+	ATT,		// Pseudo-euclidean (att48, att532)
+	EXPLICIT	// Weights given in the file
+}
@@ -0,0 +1,205 @@
+package problems.tsp;
+
+/**
+ * Two-dimensional k-d tree over the nodes of a TSP instance. It is used to build the
+ * candidate lists (k nearest nodes of every node) in O(n log n) instead of comparing
+ * all pairs of nodes. The tree is stored implicitly in a permutation of the node
+ * indices: the node in the middle of each range splits it by one of the axes.
+ */
+public class KDTree {
+
+	/* Nodes with fewer elements than this are searched linearly. */
+	private static final int BUCKET_SIZE = 8;
+
+	/* Instance whose nodes are indexed (also provides the metric). */
+	private TSP tsp;
+	private double[] x, y;
+	private double scale; // Lower bound of the distance per unit of coordinate difference
+
+	/* Implicit tree. */
+	private int[] nodes; // Permutation of the node indices
+	private boolean[] splitByX; // Split axis of the node placed at each position
+
+	/* Bounded max-heap used by queries. */
+	private int heapSize;
+	private double[] heapDistances;
+	private int[] heapNodes;
+
+	/**
+	 * Builds the tree over all the nodes of the instance.
+	 */
+	public KDTree(TSP tsp) {
+		this.tsp = tsp;
+		this.x = tsp.nodeX;
+		this.y = tsp.nodeY;
+		// ATT distances are about sqrt((dx*dx+dy*dy)/10)
+		this.scale = tsp.weightType == EdgeWeightType.ATT ? 1 / Math.sqrt(10) : 1;
+		int numNodes = tsp.numNodes;
+		nodes = new int[numNodes];
+		for (int node = 0; node < numNodes; node++)
+			nodes[node] = node;
+		splitByX = new boolean[numNodes];
+		build(0, numNodes);
+	}
+
+	/**
+	 * Returns the k nearest nodes of every node, in a flat array where the neighbors of
+	 * node i are stored, sorted by distance, in positions i*k to i*k+k-1. k must be
+	 * lower than the number of nodes.
+	 */
+	public int[] nearestNeighbors(int k) {
+		int numNodes = nodes.length;
+		int[] neighbors = new int[numNodes * k];
+		heapDistances = new double[k];
+		heapNodes = new int[k];
+		for (int node = 0; node < numNodes; node++) {
+			heapSize = 0;
+			search(node, k, 0, numNodes);
+			// Pops the heap from the farthest to the nearest neighbor
+			for (int i = k - 1; i >= 0; i--) {
+				neighbors[node * k + i] = heapNodes[0];
+				pop();
+			}
+		}
+		return neighbors;
+	}
+
+	// Construction
+
+	/**
+	 * Builds the subtree of the range [from, to), splitting by the axis with the
+	 * largest spread.
+	 */
+	private void build(int from, int to) {
+		if (to - from <= BUCKET_SIZE)
+			return;
+		double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			int node = nodes[i];
+			minX = Math.min(minX, x[node]);
+			maxX = Math.max(maxX, x[node]);
+			minY = Math.min(minY, y[node]);
+			maxY = Math.max(maxY, y[node]);
+		}
+		boolean byX = maxX - minX >= maxY - minY;
+		int middle = (from + to) >>> 1;
+		select(from, to - 1, middle, byX ? x : y);
+		splitByX[middle] = byX;
+		build(from, middle);
+		build(middle + 1, to);
+	}
+
+	/**
+	 * Places at position k the node that would be there if the range [left, right]
+	 * were sorted by the given coordinate (quickselect).
+	 */
+	private void select(int left, int right, int k, double[] coordinate) {
+		while (right > left) {
+			double pivot = coordinate[nodes[(left + right) >>> 1]];
+			int i = left, j = right;
+			while (i <= j) {
+				while (coordinate[nodes[i]] < pivot)
+					i++;
+				while (coordinate[nodes[j]] > pivot)
+					j--;
+				if (i <= j) {
+					int aux = nodes[i];
+					nodes[i] = nodes[j];
+					nodes[j] = aux;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j)
+				right = j;
+			else if (k >= i)
+				left = i;
+			else
+				return;
+		}
+	}
+
+	// Queries
+
+	/**
+	 * Searches the k nearest neighbors of a node in the range [from, to).
+	 */
+	private void search(int query, int k, int from, int to) {
+		if (to - from <= BUCKET_SIZE) {
+			for (int i = from; i < to; i++)
+				offer(query, nodes[i], k);
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		int split = nodes[middle];
+		offer(query, split, k);
+		// The difference in one coordinate (divided by sqrt(10) for ATT) is a lower bound
+		// of the distance to the nodes on the other side, for every weight type with
+		// coordinates (the rounded distances grow with the exact ones).
+		double difference = scale * (splitByX[middle] ? x[query] - x[split] : y[query] - y[split]);
+		if (difference < 0) {
+			search(query, k, from, middle);
+			if (heapSize < k || -difference < heapDistances[0])
+				search(query, k, middle + 1, to);
+		} else {
+			search(query, k, middle + 1, to);
+			if (heapSize < k || difference < heapDistances[0])
+				search(query, k, from, middle);
+		}
+	}
+
+	/**
+	 * Adds a node to the heap of neighbors if it is closer than the farthest one.
+	 */
+	private void offer(int query, int node, int k) {
+		if (node == query)
+			return;
+		double distance = tsp.computeDistance(query, node);
+		if (heapSize < k) {
+			// Sift up
+			int i = heapSize++;
+			while (i > 0 && heapDistances[(i - 1) / 2] < distance) {
+				heapDistances[i] = heapDistances[(i - 1) / 2];
+				heapNodes[i] = heapNodes[(i - 1) / 2];
+				i = (i - 1) / 2;
+			}
+			heapDistances[i] = distance;
+			heapNodes[i] = node;
+		} else if (distance < heapDistances[0]) {
+			heapDistances[0] = distance;
+			heapNodes[0] = node;
+			siftDown();
+		}
+	}
+
+	/**
+	 * Removes the farthest node of the heap.
+	 */
+	private void pop() {
+		heapSize--;
+		heapDistances[0] = heapDistances[heapSize];
+		heapNodes[0] = heapNodes[heapSize];
+		siftDown();
+	}
+
+	private void siftDown() {
+		int i = 0;
+		double distance = heapDistances[0];
+		int node = heapNodes[0];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize)
+				break;
+			if (child + 1 < heapSize && heapDistances[child + 1] > heapDistances[child])
+				child++;
+			if (heapDistances[child] <= distance)
+				break;
+			heapDistances[i] = heapDistances[child];
+			heapNodes[i] = heapNodes[child];
+			i = child;
+		}
+		heapDistances[i] = distance;
+		heapNodes[i] = node;
+	}
+}
@@ -1,6 +1,9 @@
 package problems.tsp;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 import optimization.*;
@@ -11,11 +14,12 @@ import visualization.*;
  * Implements a version of the classical TSP. The agent begins the tour in a
  * random-initial position and must reach the exit after visiting all cities
  * once. The size of the problem corresponds to the number of cities.
+ * 
+ * Instances can also be loaded from TSPLIB files (see TSPLibReader). In that case,
+ * the agent begins and ends the tour at the first node of the file, so the path
+ * is the closed tour of TSPLIB, and the cities are the rest of the nodes.
  */
-public class TSP extends OptimizationProblem implements ProblemVisualizable {
-
-	/* The class uses its own random generator (for reproducibility). */
-	private static Random random = new Random();
+public class TSP extends OptimizationProblem implements ProblemVisualizable, ProblemMetric {
 
 	/* Definition of the problem. */
 	protected int maxXYPos; // Dimensions
@@ -23,6 +27,27 @@ public class TSP extends OptimizationProblem implements ProblemVisualizable {
 	protected ArrayList<Position> posCities; // Positions of the cities
 	protected Position posExit; // Exit
 
+	/* Precomputed data used when scoring. Cities are nodes 0..size-1, the agent is
+	 * node size and the exit is node size+1. */
+	protected static final int MAX_MATRIX_NODES = 4096; // Larger instances compute distances on the fly
+	protected int numNodes; // Number of nodes (cities, agent and exit)
+	protected double[] nodeX; // Coordinates of the nodes
+	protected double[] nodeY;
+	protected double[] distances; // Flat distance matrix (numNodes x numNodes, rows of stride elements), or null
+	protected int stride; // Length of the rows of the matrix (it may have room for more nodes)
+	protected int[] neighbors; // Candidate lists (see getNeighbors())
+	protected int numNeighbors; // Length of each candidate list
+
+	/* Instances loaded from TSPLIB files (null / unused for generated instances). */
+	protected EdgeWeightType weightType; // Distance function of the file
+	protected double[] weights; // Explicit weights of the file (dimension x dimension), or null
+	protected int dimension; // Number of nodes of the file (size + 1)
+
+	/* Stable identifiers of the cities, which do not change when cities are added or removed. */
+	protected int[] cityIds; // Identifier of each city
+	protected int[] cityIndex; // Index of the city with each identifier (-1 if it was removed)
+	protected int nextCityId; // Identifier of the next city added
+
 	// Construction and parameter setting.
 
 	/**
@@ -48,7 +73,7 @@ public class TSP extends OptimizationProblem implements ProblemVisualizable {
 		// Sets the parameters
 		this.maxXYPos = maxXYPos;
 		this.size = numCities;
-		random.setSeed(seed);
+		Random random = new Random(seed); // The instance only depends on its seed
 		// Places the agent
 		int agentX = random.nextInt(maxXYPos);
 		int agentY = random.nextInt(maxXYPos);
@@ -66,6 +91,85 @@ public class TSP extends OptimizationProblem implements ProblemVisualizable {
 		}
 		// Places the exit.
 		posExit = new Position(maxXYPos - 1, maxXYPos - 1);
+		// Stores the coordinates of all nodes in primitive arrays
+		weightType = null;
+		weights = null;
+		numNodes = size + 2;
+		nodeX = new double[numNodes];
+		nodeY = new double[numNodes];
+		for (idCity = 0; idCity < size; idCity++) {
+			nodeX[idCity] = posCities.get(idCity).x;
+			nodeY[idCity] = posCities.get(idCity).y;
+		}
+		nodeX[getAgentNode()] = posAgent.x;
+		nodeY[getAgentNode()] = posAgent.y;
+		nodeX[getExitNode()] = posExit.x;
+		nodeY[getExitNode()] = posExit.y;
+		// Precomputes the distances
+		buildDistances();
+	}
+
+	/**
+	 * Loads an instance from a TSPLIB file. The first node of the file is both the
+	 * initial position of the agent and the exit.
+	 */
+	public void loadInstance(String fileName) throws IOException {
+		TSPLibReader reader = TSPLibReader.read(fileName);
+		dimension = reader.getDimension();
+		size = dimension - 1;
+		numNodes = size + 2;
+		weightType = reader.getEdgeWeightType();
+		weights = reader.getWeights();
+		// Coordinates (file node i + 1 is city i), if the file has them
+		double[] x = reader.getX(), y = reader.getY();
+		posCities = null;
+		if (x == null) {
+			nodeX = nodeY = null;
+			maxXYPos = 1;
+			posAgent = posExit = new Position(0, 0);
+		} else {
+			nodeX = new double[numNodes];
+			nodeY = new double[numNodes];
+			System.arraycopy(x, 1, nodeX, 0, size);
+			System.arraycopy(y, 1, nodeY, 0, size);
+			nodeX[getAgentNode()] = nodeX[getExitNode()] = x[0];
+			nodeY[getAgentNode()] = nodeY[getExitNode()] = y[0];
+			double max = 0;
+			for (int node = 0; node < dimension; node++)
+				max = Math.max(max, Math.max(x[node], y[node]));
+			maxXYPos = (int) Math.ceil(max) + 1;
+			posAgent = posExit = new Position((int) Math.round(x[0]), (int) Math.round(y[0]));
+		}
+		System.out.println("Loaded TSPLIB instance " + reader.getName() + ": " + dimension + " nodes, " + weightType + ".");
+		// Precomputes the distances
+		buildDistances();
+	}
+
+	/**
+	 * Precomputes the distance between every pair of nodes, if the instance is not
+	 * too large.
+	 */
+	protected void buildDistances() {
+		neighbors = null;
+		// Initial identifiers of the cities
+		nextCityId = size;
+		cityIds = new int[size];
+		cityIndex = new int[size];
+		for (int idCity = 0; idCity < size; idCity++)
+			cityIds[idCity] = cityIndex[idCity] = idCity;
+		// Distance matrix (symmetric)
+		if (numNodes > MAX_MATRIX_NODES) {
+			distances = null;
+			return;
+		}
+		stride = numNodes;
+		distances = new double[numNodes * numNodes];
+		for (int from = 0; from < numNodes; from++)
+			for (int to = from + 1; to < numNodes; to++) {
+				double distance = computeDistance(from, to);
+				distances[from * stride + to] = distance;
+				distances[to * stride + from] = distance;
+			}
 	}
 
 	/**
@@ -74,12 +178,16 @@ public class TSP extends OptimizationProblem implements ProblemVisualizable {
 	@Override
 	public void setParams(String[] params) {
 		try {
-			if (params.length == 2)
+			if (params.length > 0 && !params[0].matches("-?\\d+"))
+				loadInstance(params[0]);
+			else if (params.length == 2)
 				generateInstance(Integer.parseInt(params[0]), Integer.parseInt(params[1]), 0);
 			else if (params.length > 2)
 				generateInstance(Integer.parseInt(params[0]), Integer.parseInt(params[1]), Integer.parseInt(params[2]));
 			else
-				System.out.println("At least the size and number of cities must be provided.");
+				System.out.println("At least the size and number of cities (or a TSPLIB file) must be provided.");
+		} catch (IOException E) {
+			System.out.println("The TSPLIB file can't be loaded: " + E.getMessage());
 		} catch (Exception E) {
 			System.out.println("There has been an error while generating the new instance of TSP problem.");
 		}
@@ -96,6 +204,12 @@ public class TSP extends OptimizationProblem implements ProblemVisualizable {
 	}
 
 	public ArrayList<Position> getPosCities() {
+		// Loaded instances only build the positions when they are needed (e.g. by the views)
+		if (posCities == null && nodeX != null) {
+			posCities = new ArrayList<Position>(size);
+			for (int idCity = 0; idCity < size; idCity++)
+				posCities.add(new Position((int) Math.round(nodeX[idCity]), (int) Math.round(nodeY[idCity])));
+		}
 		return posCities;
 	}
 
@@ -103,35 +217,478 @@ public class TSP extends OptimizationProblem implements ProblemVisualizable {
 		return posExit;
 	}
 
-	// Problem description.
+	/** Returns the index of the node that represents the initial position of the agent. */
+	public int getAgentNode() {
+		return size;
+	}
+
+	/** Returns the index of the node that represents the exit. */
+	public int getExitNode() {
+		return size + 1;
+	}
+
+	// Modification of the instance.
+
+	/**
+	 * Adds a city and returns its index (the current size). The nodes of the agent and
+	 * the exit move one position up. The distance matrix and the candidate lists are
+	 * updated in place, in O(n) time (O(n k) for the candidate lists).
+	 */
+	public synchronized int addCity(double x, double y) {
+		checkModifiable();
+		int city = size, oldAgent = getAgentNode(), oldExit = getExitNode();
+		// Coordinates (the agent and the exit move one position up)
+		ensureCapacity(numNodes + 1);
+		nodeX[city + 2] = nodeX[oldExit];
+		nodeY[city + 2] = nodeY[oldExit];
+		nodeX[city + 1] = nodeX[oldAgent];
+		nodeY[city + 1] = nodeY[oldAgent];
+		nodeX[city] = x;
+		nodeY[city] = y;
+		size++;
+		numNodes++;
+		// Identifier and position
+		cityIds[city] = nextCityId;
+		cityIndex[nextCityId++] = city;
+		if (posCities != null)
+			posCities.add(new Position((int) Math.round(x), (int) Math.round(y)));
+		// Distances and candidate lists
+		updateMatrix(city, city + 1, city + 2);
+		if (neighbors != null)
+			updateNeighbors(oldAgent, oldExit, -1, -1, city);
+		return city;
+	}
+
+	/**
+	 * Removes a city. The last city takes its index, which is returned (-1 if the removed
+	 * city was the last one), and the nodes of the agent and the exit move one position
+	 * down. The distance matrix and the candidate lists are updated in place.
+	 */
+	public synchronized int removeCity(int city) {
+		checkModifiable();
+		if (city < 0 || city >= size)
+			throw new IllegalArgumentException("There is no city " + city + ".");
+		int last = size - 1, oldAgent = getAgentNode(), oldExit = getExitNode();
+		// Coordinates (the last city takes the place of the removed one)
+		nodeX[city] = nodeX[last];
+		nodeY[city] = nodeY[last];
+		nodeX[last] = nodeX[oldAgent];
+		nodeY[last] = nodeY[oldAgent];
+		nodeX[last + 1] = nodeX[oldExit];
+		nodeY[last + 1] = nodeY[oldExit];
+		size--;
+		numNodes--;
+		// Identifier and position
+		cityIndex[cityIds[city]] = -1;
+		if (city != last) {
+			cityIds[city] = cityIds[last];
+			cityIndex[cityIds[city]] = city;
+		}
+		if (posCities != null) {
+			posCities.set(city, posCities.get(last));
+			posCities.remove(last);
+		}
+		// Distances and candidate lists
+		updateMatrix(city, last, last + 1);
+		if (neighbors != null)
+			updateNeighbors(oldAgent, oldExit, city, last, -1);
+		return city == last ? -1 : last;
+	}
+
+	/**
+	 * Returns the identifiers of the cities visited by a configuration. Unlike indices,
+	 * identifiers do not change when cities are added or removed.
+	 */
+	public int[] toCityIds(Configuration configuration) {
+		int[] values = configuration.getValues();
+		int[] ids = new int[values.length];
+		for (int i = 0; i < values.length; i++)
+			ids[i] = cityIds[values[i]];
+		return ids;
+	}
+
+	/**
+	 * Builds a valid configuration from a path given by city identifiers (see toCityIds())
+	 * obtained before some cities were added or removed. Removed cities are skipped, and
+	 * new ones are inserted where they increase the length least (cheapest insertion, next
+	 * to their nearest neighbours). The nodes whose edges have changed are added to
+	 * changedNodes (if it is not null), so that a local search only needs to start there.
+	 */
+	public synchronized Configuration repairConfiguration(int[] ids, List<Integer> changedNodes) {
+		int agent = getAgentNode(), exit = getExitNode();
+		int[] next = new int[numNodes];
+		int[] prev = new int[numNodes];
+		boolean[] inPath = new boolean[numNodes];
+
+		// Path of the cities that remain (as a linked list)
+		int current = agent;
+		boolean gap = false;
+		inPath[agent] = inPath[exit] = true;
+		for (int id : ids) {
+			int city = id < nextCityId ? cityIndex[id] : -1;
+			if (city < 0 || inPath[city]) {
+				gap = true;
+				continue;
+			}
+			if (gap) {
+				touch(changedNodes, current);
+				touch(changedNodes, city);
+				gap = false;
+			}
+			next[current] = city;
+			prev[city] = current;
+			current = city;
+			inPath[city] = true;
+		}
+		next[current] = exit;
+		prev[exit] = current;
+		if (gap) {
+			touch(changedNodes, current);
+			touch(changedNodes, exit);
+		}
+
+		// Cheapest insertion of the cities that are not in the path (with the cached candidate lists, if any)
+		int[] lists = neighbors != null ? neighbors : getNeighbors(10);
+		int k = lists.length / numNodes;
+		for (int city = 0; city < size; city++) {
+			if (inPath[city])
+				continue;
+			int bestFrom = -1;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for (int j = 0; j < k; j++) {
+				int neighbor = lists[city * k + j];
+				if (!inPath[neighbor])
+					continue;
+				if (neighbor != exit) {
+					double cost = distance(neighbor, city) + distance(city, next[neighbor]) - distance(neighbor, next[neighbor]);
+					if (cost < bestCost) {
+						bestCost = cost;
+						bestFrom = neighbor;
+					}
+				}
+				if (neighbor != agent) {
+					double cost = distance(prev[neighbor], city) + distance(city, neighbor) - distance(prev[neighbor], neighbor);
+					if (cost < bestCost) {
+						bestCost = cost;
+						bestFrom = prev[neighbor];
+					}
+				}
+			}
+			// None of the neighbours is in the path yet: every edge is tried
+			if (bestFrom == -1)
+				for (int from = agent; from != exit; from = next[from]) {
+					double cost = distance(from, city) + distance(city, next[from]) - distance(from, next[from]);
+					if (cost < bestCost) {
+						bestCost = cost;
+						bestFrom = from;
+					}
+				}
+			int to = next[bestFrom];
+			next[bestFrom] = city;
+			prev[city] = bestFrom;
+			next[city] = to;
+			prev[to] = city;
+			inPath[city] = true;
+			touch(changedNodes, bestFrom);
+			touch(changedNodes, city);
+			touch(changedNodes, to);
+		}
+
+		// Values of the configuration
+		int[] values = new int[size];
+		current = agent;
+		for (int i = 0; i < size; i++) {
+			current = next[current];
+			values[i] = current;
+		}
+		return new Configuration(values);
+	}
+
+	private static void touch(List<Integer> changedNodes, int node) {
+		if (changedNodes != null)
+			changedNodes.add(node);
+	}
+
+	/**
+	 * Checks that cities can be added to or removed from the instance.
+	 */
+	private void checkModifiable() {
+		if (weightType == EdgeWeightType.EXPLICIT || nodeX == null)
+			throw new UnsupportedOperationException("Cities can only be added to or removed from instances with coordinates.");
+	}
+
+	/**
+	 * Makes room for a number of nodes in the arrays of coordinates and identifiers.
+	 */
+	private void ensureCapacity(int nodes) {
+		if (nodeX.length < nodes) {
+			int capacity = Math.max(nodes, nodeX.length + nodeX.length / 2);
+			nodeX = Arrays.copyOf(nodeX, capacity);
+			nodeY = Arrays.copyOf(nodeY, capacity);
+		}
+		if (cityIds.length < nodes)
+			cityIds = Arrays.copyOf(cityIds, Math.max(nodes, cityIds.length + cityIds.length / 2));
+		if (cityIndex.length <= nextCityId)
+			cityIndex = Arrays.copyOf(cityIndex, cityIndex.length + cityIndex.length / 2 + 1);
+	}
+
+	/**
+	 * Computes again the rows (and columns) of the distance matrix of some nodes. The
+	 * matrix grows if it has no room for the current nodes, and it is dropped if they
+	 * are too many.
+	 */
+	private void updateMatrix(int... nodes) {
+		if (distances == null)
+			return;
+		if (numNodes > MAX_MATRIX_NODES) {
+			distances = null;
+			return;
+		}
+		if (stride < numNodes) {
+			int newStride = Math.min(MAX_MATRIX_NODES, Math.max(numNodes, stride + stride / 2));
+			double[] matrix = new double[newStride * newStride];
+			for (int from = 0; from < stride; from++)
+				System.arraycopy(distances, from * stride, matrix, from * newStride, stride);
+			distances = matrix;
+			stride = newStride;
+		}
+		for (int node : nodes)
+			for (int other = 0; other < numNodes; other++) {
+				double distance = other == node ? 0 : computeDistance(node, other);
+				distances[node * stride + other] = distance;
+				distances[other * stride + node] = distance;
+			}
+	}
+
+	/**
+	 * Updates the candidate lists after adding a city (added) or removing one (removed,
+	 * whose index is taken by last). Nodes are renumbered, the lists that contained the
+	 * removed city are computed again, and the added city enters the lists of the nodes
+	 * that are closer to it than to their furthest candidate.
+	 */
+	private void updateNeighbors(int oldAgent, int oldExit, int removed, int last, int added) {
+		int k = numNeighbors;
+		if (k > numNodes - 1) {
+			neighbors = null;
+			return;
+		}
+		int oldNumNodes = added >= 0 ? numNodes - 1 : numNodes + 1;
+		int shift = added >= 0 ? 1 : -1;
+		int[] lists = new int[numNodes * k];
+		double[] listDistances = new double[k];
+		boolean[] recompute = new boolean[numNodes];
+
+		for (int node = 0; node < oldNumNodes; node++) {
+			int newNode = renumber(node, oldAgent, oldExit, removed, last, shift);
+			if (newNode < 0)
+				continue;
+			for (int j = 0; j < k; j++) {
+				int neighbor = renumber(neighbors[node * k + j], oldAgent, oldExit, removed, last, shift);
+				lists[newNode * k + j] = neighbor;
+				if (neighbor < 0)
+					recompute[newNode] = true;
+			}
+			// The added city enters the list if it is closer than the furthest candidate
+			if (added >= 0 && !recompute[newNode]) {
+				double d = distance(newNode, added);
+				int i = k - 1;
+				if (d < distance(newNode, lists[newNode * k + i])) {
+					while (i > 0 && distance(newNode, lists[newNode * k + i - 1]) > d) {
+						lists[newNode * k + i] = lists[newNode * k + i - 1];
+						i--;
+					}
+					lists[newNode * k + i] = added;
+				}
+			}
+		}
+		if (added >= 0)
+			recompute[added] = true;
+		for (int node = 0; node < numNodes; node++)
+			if (recompute[node])
+				nearestNeighbors(node, k, lists, listDistances);
+		neighbors = lists;
+	}
 
 	/**
-	 * Calculates the score of a configuration as the sum of the path.
+	 * New index of a node after adding (shift 1) or removing (shift -1) a city.
+	 * Returns -1 for the removed city.
 	 */
+	private static int renumber(int node, int oldAgent, int oldExit, int removed, int last, int shift) {
+		if (node == oldAgent || node == oldExit)
+			return node + shift;
+		if (node == removed)
+			return -1;
+		if (node == last)
+			return removed;
+		return node;
+	}
+
+	// Problem description.
 
+	/**
+	 * Calculates the score of a configuration as the length of the path, from the
+	 * initial position of the agent to the exit.
+	 */
 	@Override
-	
 	public double score(Configuration configuration) {
+		return score(configuration.getValues(), 0);
+	}
+
+	/**
+	 * Calculates the length of the path stored in solution[offset..offset+size-1].
+	 */
+	@Override
+	public double score(int[] solution, int offset) {
+		double distance = 0;
+		int previous = getAgentNode();
+		int end = offset + size;
+		if (distances != null) {
+			// Fast path: array-indexed sum over the precomputed matrix
+			double[] matrix = distances;
+			int rowSize = stride;
+			for (int index = offset; index < end; index++) {
+				distance += matrix[previous * rowSize + solution[index]];
+				previous = solution[index];
+			}
+			return distance + matrix[previous * rowSize + getExitNode()];
+		}
+		for (int index = offset; index < end; index++) {
+			distance += computeDistance(previous, solution[index]);
+			previous = solution[index];
+		}
+		return distance + computeDistance(previous, getExitNode());
+	}
+
+	/**
+	 * Returns the change of length caused by swapping the cities at positions i and j.
+	 * Only the (at most four) edges around both positions are taken into account.
+	 */
+	@Override
+	public double swapDelta(Configuration configuration, int i, int j) {
+		if (i == j)
+			return 0;
+		if (i > j) {
+			int aux = i;
+			i = j;
+			j = aux;
+		}
 		int[] solution = configuration.getValues();
-	    int distance = 0;
-	    for (int index = 0; index < solution.length; index++) {
-	        int starting = solution[index];
-	        int destination = 0;
-			int pos_x = posCities.get(starting).x;
-			int pos_y = posCities.get(starting).y;
-			int pos_x2 = posCities.get(destination).x;
-			int pos_y2 = posCities.get(destination).y;
-	        if (index + 1 < solution.length) {
-	            destination = solution[index + 1];
-	        } else {
-	            destination = solution[0];
-	            distance += + Math.sqrt(Math.pow((this.posAgent.x - pos_x2), 2) + Math.pow((this.posAgent.y - pos_y2), 2));
-	        }
-	            distance += Math.sqrt(Math.pow((pos_x - pos_x2), 2) + Math.pow((pos_y - pos_y2), 2));
-	    }
-	    return distance;
-	}
-	
+		if (j == i + 1)
+			return reversalDelta(configuration, i, j);
+		int cityI = solution[i], cityJ = solution[j];
+		int prevI = nodeAt(solution, i - 1), nextI = solution[i + 1];
+		int prevJ = solution[j - 1], nextJ = nodeAt(solution, j + 1);
+		return distance(prevI, cityJ) + distance(cityJ, nextI) + distance(prevJ, cityI) + distance(cityI, nextJ)
+				- distance(prevI, cityI) - distance(cityI, nextI) - distance(prevJ, cityJ) - distance(cityJ, nextJ);
+	}
+
+	/**
+	 * Returns the change of length caused by reversing the path between positions i
+	 * and j (2-opt move). Only the two edges at the ends of the segment change.
+	 */
+	@Override
+	public double reversalDelta(Configuration configuration, int i, int j) {
+		if (i == j)
+			return 0;
+		if (i > j) {
+			int aux = i;
+			i = j;
+			j = aux;
+		}
+		int[] solution = configuration.getValues();
+		int before = nodeAt(solution, i - 1), after = nodeAt(solution, j + 1);
+		return distance(before, solution[j]) + distance(solution[i], after) 
+				- distance(before, solution[i]) - distance(solution[j], after);
+	}
+
+	/**
+	 * Returns the change of length caused by moving the segment of the given length
+	 * that begins at position i right before position j (insertion / or-opt move).
+	 */
+	@Override
+	public double insertionDelta(Configuration configuration, int i, int length, int j) {
+		if (j >= i && j <= i + length)
+			return 0;
+		int[] solution = configuration.getValues();
+		int first = solution[i], last = solution[i + length - 1];
+		int before = nodeAt(solution, i - 1), after = nodeAt(solution, i + length);
+		int newBefore = nodeAt(solution, j - 1), newAfter = nodeAt(solution, j);
+		return distance(before, after) + distance(newBefore, first) + distance(last, newAfter)
+				- distance(before, first) - distance(last, after) - distance(newBefore, newAfter);
+	}
+
+	/**
+	 * Returns the k nearest nodes of every node, computed with a k-d tree (or by brute
+	 * force when the distances are explicit). The lists are cached, so they are only
+	 * rebuilt if a different k is requested.
+	 */
+	@Override
+	public synchronized int[] getNeighbors(int k) {
+		k = Math.min(k, numNodes - 1);
+		if (neighbors == null || numNeighbors != k) {
+			neighbors = weightType == EdgeWeightType.EXPLICIT ? nearestNeighbors(k) : new KDTree(this).nearestNeighbors(k);
+			numNeighbors = k;
+		}
+		return neighbors;
+	}
+
+	/**
+	 * Computes the k nearest nodes of every node comparing all pairs (sorted lists,
+	 * same layout as KDTree.nearestNeighbors()).
+	 */
+	private int[] nearestNeighbors(int k) {
+		int[] lists = new int[numNodes * k];
+		double[] listDistances = new double[k];
+		for (int node = 0; node < numNodes; node++)
+			nearestNeighbors(node, k, lists, listDistances);
+		return lists;
+	}
+
+	/**
+	 * Computes the k nearest nodes of a node comparing it with all the others, and
+	 * stores them (sorted) in its list.
+	 */
+	private void nearestNeighbors(int node, int k, int[] lists, double[] listDistances) {
+		int count = 0;
+		for (int other = 0; other < numNodes; other++) {
+			if (other == node)
+				continue;
+			double d = distance(node, other);
+			if (count == k && d >= listDistances[k - 1])
+				continue;
+			// Insertion in the sorted list
+			int i = count < k ? count++ : k - 1;
+			while (i > 0 && listDistances[i - 1] > d) {
+				listDistances[i] = listDistances[i - 1];
+				lists[node * k + i] = lists[node * k + i - 1];
+				i--;
+			}
+			listDistances[i] = d;
+			lists[node * k + i] = other;
+		}
+	}
+
+	/**
+	 * Returns the node visited at a position of the path. Position -1 corresponds to
+	 * the agent and position size to the exit.
+	 */
+	private int nodeAt(int[] solution, int index) {
+		if (index < 0)
+			return getAgentNode();
+		if (index >= solution.length)
+			return getExitNode();
+		return solution[index];
+	}
+
+	/**
+	 * Returns the distance between two nodes (cities, agent or exit).
+	 */
+	@Override
+	public double distance(int from, int to) {
+		if (distances != null)
+			return distances[from * stride + to];
+		return computeDistance(from, to);
+	}
 
 	public Configuration genRandomConfiguration() {
 		// Creates the values (ordered)
@@ -140,6 +697,7 @@ public class TSP extends OptimizationProblem implements ProblemVisualizable {
 			values[idCity] = idCity;
 		// Uses Fisher Yates method to shuffle the array:
 		// https://en.wikipedia.org/wiki/Fisher%E2%80%93Yates_shuffle
+		Random random = RandomStreams.current();
 		int index;
 		int aux;
 		for (int idCity = size - 1; idCity > 0; idCity--) {
@@ -151,13 +709,61 @@ public class TSP extends OptimizationProblem implements ProblemVisualizable {
 		return new Configuration(values);
 	}
 
+	/**
+	 * Builds a path with a constructive heuristic (see TourConstruction).
+	 */
+	@Override
+	public Configuration genConfiguration(Initializer initializer) {
+		if (size < 2)
+			return genRandomConfiguration();
+		TourConstruction construction = new TourConstruction(this);
+		switch (initializer) {
+			case NEAREST_NEIGHBOR:
+				return new Configuration(construction.nearestNeighbor());
+			case GREEDY_EDGE:
+				return new Configuration(construction.greedyEdge());
+			case HILBERT:
+				return new Configuration(construction.hilbert());
+			case CHRISTOFIDES:
+				return new Configuration(construction.christofides());
+			default:
+				return genRandomConfiguration();
+		}
+	}
+
 	// Utilities
 
 	/**
-	 * Calculates the distance between two points.
+	 * Calculates the (euclidean) distance between two nodes. Loaded instances use
+	 * the distance function of their file.
 	 */
-	private double dist(Position from, Position to) {
-		return Math.sqrt(Math.pow(from.x - to.x, 2) + Math.pow(from.y - to.y, 2));
+	protected double computeDistance(int from, int to) {
+		if (weightType == EdgeWeightType.EXPLICIT)
+			return weights[fileNode(from) * dimension + fileNode(to)];
+		double dx = nodeX[from] - nodeX[to];
+		double dy = nodeY[from] - nodeY[to];
+		if (weightType == null)
+			return Math.sqrt(dx * dx + dy * dy);
+		switch (weightType) {
+		case CEIL_2D:
+			return Math.ceil(Math.sqrt(dx * dx + dy * dy));
+		case MAN_2D:
+			return (int) (Math.abs(dx) + Math.abs(dy) + 0.5);
+		case ATT:
+			double r = Math.sqrt((dx * dx + dy * dy) / 10);
+			double t = (int) (r + 0.5);
+			return t < r ? t + 1 : t;
+		default:
+			return (int) (Math.sqrt(dx * dx + dy * dy) + 0.5);
+		}
+	}
+
+	/**
+	 * Returns the node of the TSPLIB file that corresponds to a node (the agent and
+	 * the exit are the first node of the file).
+	 */
+	protected int fileNode(int node) {
+		return node < size ? node + 1 : 0;
 	}
 
 	/**
@@ -165,6 +771,10 @@ public class TSP extends OptimizationProblem implements ProblemVisualizable {
 	 */
 	@Override
 	public ProblemView getView() {
+		if (nodeX == null) {
+			System.out.println("The instance has no coordinates, so it can't be displayed.");
+			return null;
+		}
 		TSPView mazeView = new TSPView(this, 700);
 		return mazeView;
 	}
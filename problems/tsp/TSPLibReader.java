@@ -0,0 +1,284 @@
+package problems.tsp;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads instances in the TSPLIB format (symmetric TSP). The file is memory-mapped and
+ * parsed byte by byte: only the header lines become strings, and the coordinates or
+ * weights are parsed directly into primitive arrays.
+ *
+ * Supported edge weight types: EUC_2D, CEIL_2D, MAN_2D, ATT and EXPLICIT (FULL_MATRIX and
+ * the UPPER/LOWER, ROW/COL, with or without DIAG formats).
+ */
+public class TSPLibReader {
+
+	/* Header */
+	private String name = "";
+	private int dimension = -1;
+	private EdgeWeightType edgeWeightType;
+	private String edgeWeightFormat = "FULL_MATRIX";
+
+	/* Data (indexed from 0; node i of the file is i + 1) */
+	private double[] x, y;					// Coordinates (or display data), or null
+	private double[] weights;				// Explicit weights (dimension x dimension), or null
+
+	/* Parsing state */
+	private MappedByteBuffer buffer;
+	private int position, limit;
+
+	/* Powers of ten used to parse numbers */
+	private static final double[] POWERS = new double[23];
+	static {
+		POWERS[0] = 1;
+		for (int i = 1; i < POWERS.length; i++)
+			POWERS[i] = POWERS[i - 1] * 10;
+	}
+
+	/** Reads a TSPLIB file. */
+	public static TSPLibReader read(String fileName) throws IOException {
+		TSPLibReader reader = new TSPLibReader();
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("The file " + fileName + " is too large.");
+			reader.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		reader.limit = reader.buffer.limit();
+		reader.parse();
+		reader.buffer = null;
+		return reader;
+	}
+
+	/* Parses the header lines and the data sections */
+	private void parse() throws IOException {
+		while (position < limit) {
+			String line = readLine().trim();
+			if (line.isEmpty())
+				continue;
+			int colon = line.indexOf(':');
+			String key = (colon < 0 ? line : line.substring(0, colon)).trim();
+			String value = colon < 0 ? "" : line.substring(colon + 1).trim();
+
+			switch (key) {
+				case "NAME":
+					name = value;
+					break;
+				case "TYPE":
+					if (!value.equals("TSP"))
+						throw new IOException("Only symmetric TSP instances are supported (TYPE: " + value + ").");
+					break;
+				case "DIMENSION":
+					dimension = Integer.parseInt(value);
+					break;
+				case "EDGE_WEIGHT_TYPE":
+					try {
+						edgeWeightType = EdgeWeightType.valueOf(value);
+					} catch (IllegalArgumentException e) {
+						throw new IOException("Unsupported edge weight type: " + value + ".");
+					}
+					break;
+				case "EDGE_WEIGHT_FORMAT":
+					edgeWeightFormat = value;
+					break;
+				case "NODE_COORD_SECTION":
+					readCoordinates();
+					break;
+				case "DISPLAY_DATA_SECTION":
+					if (x == null)
+						readCoordinates();
+					else
+						skipCoordinates();
+					break;
+				case "EDGE_WEIGHT_SECTION":
+					readWeights();
+					break;
+				case "EOF":
+					position = limit;
+					break;
+				default:
+					// Other keywords (COMMENT, NODE_COORD_TYPE, DISPLAY_DATA_TYPE...) are ignored
+					break;
+			}
+		}
+
+		if (edgeWeightType == null)
+			throw new IOException("EDGE_WEIGHT_TYPE not found.");
+		if (edgeWeightType == EdgeWeightType.EXPLICIT ? weights == null : x == null)
+			throw new IOException("The data section of the instance is missing.");
+	}
+
+	/* Reads dimension lines "id x y" */
+	private void readCoordinates() throws IOException {
+		checkDimension();
+		x = new double[dimension];
+		y = new double[dimension];
+		for (int i = 0; i < dimension; i++) {
+			int node = (int) readNumber() - 1;
+			if (node < 0 || node >= dimension)
+				throw new IOException("Wrong node number: " + (node + 1) + ".");
+			x[node] = readNumber();
+			y[node] = readNumber();
+		}
+	}
+
+	/* Skips dimension lines "id x y" */
+	private void skipCoordinates() throws IOException {
+		for (int i = 0; i < 3 * dimension; i++)
+			readNumber();
+	}
+
+	/* Reads the explicit weights according to the format and stores the full (symmetric) matrix */
+	private void readWeights() throws IOException {
+		checkDimension();
+		weights = new double[dimension * dimension];
+		int n = dimension;
+		switch (edgeWeightFormat) {
+			case "FULL_MATRIX":
+				for (int i = 0; i < n * n; i++)
+					weights[i] = readNumber();
+				return;
+			case "UPPER_ROW":
+			case "LOWER_COL":
+				for (int i = 0; i < n; i++)
+					for (int j = i + 1; j < n; j++)
+						setWeight(i, j, readNumber());
+				return;
+			case "LOWER_ROW":
+			case "UPPER_COL":
+				for (int i = 0; i < n; i++)
+					for (int j = 0; j < i; j++)
+						setWeight(i, j, readNumber());
+				return;
+			case "UPPER_DIAG_ROW":
+			case "LOWER_DIAG_COL":
+				for (int i = 0; i < n; i++)
+					for (int j = i; j < n; j++)
+						setWeight(i, j, readNumber());
+				return;
+			case "LOWER_DIAG_ROW":
+			case "UPPER_DIAG_COL":
+				for (int i = 0; i < n; i++)
+					for (int j = 0; j <= i; j++)
+						setWeight(i, j, readNumber());
+				return;
+			default:
+				throw new IOException("Unsupported edge weight format: " + edgeWeightFormat + ".");
+		}
+	}
+
+	private void setWeight(int i, int j, double weight) {
+		weights[i * dimension + j] = weight;
+		weights[j * dimension + i] = weight;
+	}
+
+	private void checkDimension() throws IOException {
+		if (dimension < 3)
+			throw new IOException("DIMENSION must be given (and greater than 2) before the data sections.");
+	}
+
+	/* Reads the rest of the current line (only used for the header) */
+	private String readLine() {
+		int start = position;
+		while (position < limit && buffer.get(position) != '\n')
+			position++;
+		byte[] bytes = new byte[position - start];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = buffer.get(start + i);
+		position++;
+		return new String(bytes, java.nio.charset.StandardCharsets.US_ASCII);
+	}
+
+	/* Parses the next number (integer or decimal, with optional sign and exponent) */
+	private double readNumber() throws IOException {
+		byte c = 0;
+		while (position < limit && ((c = buffer.get(position)) == ' ' || c == '\t' || c == '\r' || c == '\n'))
+			position++;
+		if (position >= limit)
+			throw new IOException("Unexpected end of file.");
+
+		boolean negative = c == '-';
+		if (c == '-' || c == '+')
+			position++;
+
+		long mantissa = 0;
+		int digits = 0, exponent = 0;
+		boolean any = false;
+		while (position < limit && (c = buffer.get(position)) >= '0' && c <= '9') {
+			if (digits < 18) {
+				mantissa = mantissa * 10 + (c - '0');
+				if (mantissa != 0)
+					digits++;
+			} else
+				exponent++;
+			any = true;
+			position++;
+		}
+		if (position < limit && buffer.get(position) == '.') {
+			position++;
+			while (position < limit && (c = buffer.get(position)) >= '0' && c <= '9') {
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (c - '0');
+					if (mantissa != 0)
+						digits++;
+					exponent--;
+				}
+				any = true;
+				position++;
+			}
+		}
+		if (!any)
+			throw new IOException("Number expected at byte " + position + ".");
+		if (position < limit && ((c = buffer.get(position)) == 'e' || c == 'E')) {
+			position++;
+			boolean negativeExponent = false;
+			if (position < limit && ((c = buffer.get(position)) == '-' || c == '+')) {
+				negativeExponent = c == '-';
+				position++;
+			}
+			int value = 0;
+			while (position < limit && (c = buffer.get(position)) >= '0' && c <= '9') {
+				value = value * 10 + (c - '0');
+				position++;
+			}
+			exponent += negativeExponent ? -value : value;
+		}
+
+		double number = mantissa;
+		if (exponent < 0)
+			number = -exponent < POWERS.length ? number / POWERS[-exponent] : number * Math.pow(10, exponent);
+		else if (exponent > 0)
+			number = exponent < POWERS.length ? number * POWERS[exponent] : number * Math.pow(10, exponent);
+		return negative ? -number : number;
+	}
+
+	// Getters
+
+	public String getName() {
+		return name;
+	}
+
+	public int getDimension() {
+		return dimension;
+	}
+
+	public EdgeWeightType getEdgeWeightType() {
+		return edgeWeightType;
+	}
+
+	/** Coordinates of the nodes (or display data), or null if there are none. */
+	public double[] getX() {
+		return x;
+	}
+
+	public double[] getY() {
+		return y;
+	}
+
+	/** Explicit weights as a full matrix (dimension x dimension), or null. */
+	public double[] getWeights() {
+		return weights;
+	}
+}
@@ -49,14 +49,14 @@ public class TSPView extends JPanel implements ProblemView{
 	public TSPView(TSP tsp, int sizePx){
 		this.tsp = tsp;
 		this.sizePx = sizePx;
-		this.scale = sizePx/((double)this.tsp.maxXYPos);
+		this.scale = sizePx/((double)this.tsp.getMaxXYPos());
 		// Size of each city (in pixels).
 		sizeCityPx = this.scale;
 		// Calculates the positions in pixels for the elements. 
-		posAgentPx = new Position((int) (this.tsp.posAgent.x*scale), (int) (this.tsp.posAgent.y*scale));
-		posExitPx = new Position((int) (this.tsp.posExit.x*scale), (int) (this.tsp.posExit.y*scale));
+		posAgentPx = new Position((int) (this.tsp.getPosAgent().x*scale), (int) (this.tsp.getPosAgent().y*scale));
+		posExitPx = new Position((int) (this.tsp.getPosExit().x*scale), (int) (this.tsp.getPosExit().y*scale));
 		posCitiesPx = new ArrayList<Position>();
-		for (Position posCity: tsp.posCities) 
+		for (Position posCity: tsp.getPosCities()) 
 			posCitiesPx.add(new Position((int) (posCity.x*scale), (int) (posCity.y*scale)));
 	
 		// The minimum size is five pixels. Otherwise, dots are very small. 
@@ -0,0 +1,549 @@
+package problems.tsp;
+
+import java.util.Arrays;
+
+/**
+ * Constructive heuristics that build a path from the agent to the exit through all the
+ * cities, used as starting points of the searches instead of random permutations (see
+ * TSP.genConfiguration()). They rely on the candidate lists of the instance and, to find
+ * the nearest node of a set when the candidates are exhausted, on a grid over the
+ * coordinates, so they take O(n log n) on instances with coordinates. On explicit
+ * instances without coordinates these searches are linear.
+ */
+class TourConstruction {
+
+	/* Instance */
+	private final TSP tsp;
+	private final int size, start, end; // Number of cities, agent node and exit node
+	private final int numNodes;
+	private final double[] x, y; // Coordinates of the nodes, or null
+	private final int[] neighbors; // Candidate lists
+	private final int k;
+
+	TourConstruction(TSP tsp) {
+		this.tsp = tsp;
+		size = tsp.size();
+		start = tsp.getAgentNode();
+		end = tsp.getExitNode();
+		numNodes = size + 2;
+		x = tsp.nodeX;
+		y = tsp.nodeY;
+		// Reuses the candidate lists already built, if any
+		neighbors = tsp.getNeighbors(tsp.neighbors != null ? tsp.numNeighbors : 10);
+		k = neighbors.length / numNodes;
+	}
+
+	// Nearest neighbor
+
+	/**
+	 * Goes from the agent to the nearest unvisited city until all of them are visited.
+	 */
+	int[] nearestNeighbor() {
+		int[] tour = new int[size];
+		NodeSet unvisited = new NodeSet(identity(size), size);
+		int current = start;
+		for (int i = 0; i < size; i++) {
+			int next = nearestCandidate(current, unvisited);
+			if (next < 0)
+				next = unvisited.nearest(current);
+			unvisited.remove(next);
+			tour[i] = next;
+			current = next;
+		}
+		return tour;
+	}
+
+	/* Nearest candidate of a node that belongs to a set, or -1 */
+	private int nearestCandidate(int node, NodeSet set) {
+		for (int j = 0; j < k; j++) {
+			int candidate = neighbors[node * k + j];
+			if (set.contains(candidate))
+				return candidate;
+		}
+		return -1;
+	}
+
+	// Greedy edge
+
+	/**
+	 * Adds the edges of the candidate lists from the shortest one, skipping those that
+	 * would give a node more than two edges (one for the agent and the exit), close a
+	 * cycle or join the agent with the exit. The resulting fragments are then chained
+	 * from the agent, always going to the nearest free end of a fragment.
+	 */
+	int[] greedyEdge() {
+		int[] link = new int[2 * numNodes]; // Adjacent nodes of each node (-1 if none)
+		Arrays.fill(link, -1);
+		int[] degree = new int[numNodes];
+		UnionFind components = new UnionFind(numNodes);
+
+		long[] edges = sortedCandidateEdges();
+		for (long edge : edges) {
+			int index = (int) edge;
+			int a = index / k, b = neighbors[index];
+			if (degree[a] == maxDegree(a) || degree[b] == maxDegree(b) || !components.canJoin(a, b))
+				continue;
+			components.join(a, b);
+			link[2 * a + degree[a]++] = b;
+			link[2 * b + degree[b]++] = a;
+		}
+
+		// Free ends of the fragments that contain neither the agent nor the exit
+		int startComponent = components.find(start), endComponent = components.find(end);
+		int[] ends = new int[size];
+		int numEnds = 0;
+		for (int city = 0; city < size; city++) {
+			int component = components.find(city);
+			if (degree[city] < 2 && component != startComponent && component != endComponent)
+				ends[numEnds++] = city;
+		}
+		NodeSet freeEnds = new NodeSet(ends, numEnds);
+
+		// Chains the fragments, from the one of the agent
+		int[] tour = new int[size];
+		pathLength = 0;
+		int current = start;
+		if (link[2 * start] >= 0) {
+			tour[pathLength++] = link[2 * start];
+			current = traverse(start, link[2 * start], link, tour);
+		}
+		while (freeEnds.size() > 0) {
+			int next = nearestCandidate(current, freeEnds);
+			if (next < 0)
+				next = freeEnds.nearest(current);
+			freeEnds.remove(next);
+			tour[pathLength++] = next;
+			current = traverse(-1, next, link, tour);
+			if (current != next)
+				freeEnds.remove(current);
+		}
+
+		// Ends with the fragment of the exit, traversed towards it
+		int length = pathLength;
+		int[] fragment = new int[size];
+		pathLength = 0;
+		if (link[2 * end] >= 0) {
+			fragment[pathLength++] = link[2 * end];
+			traverse(end, link[2 * end], link, fragment);
+		}
+		for (int i = pathLength - 1; i >= 0; i--)
+			tour[length++] = fragment[i];
+		return tour;
+	}
+
+	/* Number of cities written in the path being built by traverse() */
+	private int pathLength;
+
+	/*
+	 * Appends to the path the cities of a fragment after a node (already in the path),
+	 * moving away from the previous node (-1 at a free end), and returns its last city.
+	 */
+	private int traverse(int previous, int node, int[] link, int[] path) {
+		while (true) {
+			int next = link[2 * node] != previous ? link[2 * node] : link[2 * node + 1];
+			if (next < 0 || next >= size)
+				return node;
+			path[pathLength++] = next;
+			previous = node;
+			node = next;
+		}
+	}
+
+	/* Edges of the candidate lists (a < b), sorted by length: length as a float in the high bits, index in the lists in the low ones */
+	private long[] sortedCandidateEdges() {
+		long[] edges = new long[numNodes * k];
+		int count = 0;
+		for (int a = 0; a < numNodes; a++)
+			for (int j = 0; j < k; j++) {
+				int b = neighbors[a * k + j];
+				// Each edge once (if b does not list a, the edge is kept from a)
+				if (a < b || !listed(b, a)) {
+					float length = (float) tsp.distance(a, b);
+					edges[count++] = ((long) Float.floatToIntBits(length) << 32) | (a * k + j);
+				}
+			}
+		edges = Arrays.copyOf(edges, count);
+		Arrays.sort(edges);
+		return edges;
+	}
+
+	/* True if b is in the candidate list of a */
+	private boolean listed(int a, int b) {
+		for (int j = 0; j < k; j++)
+			if (neighbors[a * k + j] == b)
+				return true;
+		return false;
+	}
+
+	private int maxDegree(int node) {
+		return node >= size ? 1 : 2;
+	}
+
+	// Space-filling curve
+
+	/**
+	 * Visits the cities in the order of a Hilbert curve over the bounding box of the
+	 * instance, in the direction that best fits the agent and the exit. Requires
+	 * coordinates (otherwise, it builds a nearest neighbor tour).
+	 */
+	int[] hilbert() {
+		if (x == null)
+			return nearestNeighbor();
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, max = 0;
+		for (int node = 0; node < numNodes; node++) {
+			minX = Math.min(minX, x[node]);
+			minY = Math.min(minY, y[node]);
+		}
+		for (int node = 0; node < numNodes; node++)
+			max = Math.max(max, Math.max(x[node] - minX, y[node] - minY));
+		double scale = max > 0 ? (HILBERT_SIDE - 1) / max : 0;
+
+		// Sorts by the position along the curve (high bits) and the city (low bits)
+		long[] keys = new long[size];
+		for (int city = 0; city < size; city++)
+			keys[city] = ((long) hilbertIndex((int) ((x[city] - minX) * scale), (int) ((y[city] - minY) * scale)) << 32) | city;
+		Arrays.sort(keys);
+		int[] tour = new int[size];
+		for (int i = 0; i < size; i++)
+			tour[i] = (int) keys[i];
+
+		// Reverses the order if it fits the agent and the exit better
+		if (size > 1 && tsp.distance(start, tour[size - 1]) + tsp.distance(tour[0], end) < tsp.distance(start, tour[0]) + tsp.distance(tour[size - 1], end))
+			for (int i = 0, j = size - 1; i < j; i++, j--) {
+				int aux = tour[i];
+				tour[i] = tour[j];
+				tour[j] = aux;
+			}
+		return tour;
+	}
+
+	private static final int HILBERT_SIDE = 1 << 15; // Cells of each side of the curve
+
+	/* Position of the cell (x, y) along the Hilbert curve */
+	private static int hilbertIndex(int x, int y) {
+		int index = 0;
+		for (int s = HILBERT_SIDE / 2; s > 0; s /= 2) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			index += s * s * ((3 * rx) ^ ry);
+			// Rotates the quadrant
+			if (ry == 0) {
+				if (rx == 1) {
+					x = s - 1 - x;
+					y = s - 1 - y;
+				}
+				int aux = x;
+				x = y;
+				y = aux;
+			}
+		}
+		return index;
+	}
+
+	// Christofides
+
+	/**
+	 * Christofides' heuristic adapted to a path from the agent to the exit: a spanning
+	 * tree, a matching of the nodes with the wrong parity (odd degree, except the agent
+	 * and the exit, which must have odd degree), an Euler path of the resulting graph and
+	 * shortcuts of the repeated cities. To keep O(n log n), the tree is built from the
+	 * candidate edges (any components left are chained) and the matching is greedy instead
+	 * of minimum, so the 3/2 guarantee does not hold.
+	 */
+	int[] christofides() {
+		// Spanning tree (Kruskal over the candidate edges)
+		int[] edgeA = new int[2 * numNodes], edgeB = new int[2 * numNodes];
+		int numEdges = 0;
+		int[] degree = new int[numNodes];
+		UnionFind components = new UnionFind(numNodes);
+		for (long edge : sortedCandidateEdges()) {
+			int index = (int) edge;
+			int a = index / k, b = neighbors[index];
+			if (components.find(a) == components.find(b))
+				continue;
+			components.join(a, b);
+			edgeA[numEdges] = a;
+			edgeB[numEdges++] = b;
+			degree[a]++;
+			degree[b]++;
+		}
+		// If the candidate graph is not connected, joins each node with the previous one when they are still apart
+		for (int node = 1; node < numNodes; node++)
+			if (components.find(node) != components.find(node - 1)) {
+				components.join(node, node - 1);
+				edgeA[numEdges] = node - 1;
+				edgeB[numEdges++] = node;
+				degree[node - 1]++;
+				degree[node]++;
+			}
+
+		// Nodes with the wrong parity
+		int[] odd = new int[numNodes];
+		int numOdd = 0;
+		for (int node = 0; node < numNodes; node++)
+			if ((degree[node] % 2 == 1) != (node == start || node == end))
+				odd[numOdd++] = node;
+
+		// Greedy matching: in each round, every unmatched node proposes its nearest unmatched one, and the pairs are accepted from the shortest
+		NodeSet unmatched = new NodeSet(odd, numOdd);
+		long[] pairs = new long[numOdd];
+		int[] proposal = new int[numNodes];
+		while (unmatched.size() > 0) {
+			int numPairs = 0;
+			for (int i = 0; i < numOdd; i++) {
+				int node = odd[i];
+				if (!unmatched.contains(node))
+					continue;
+				int other = nearestCandidate(node, unmatched);
+				if (other < 0 || other == node)
+					other = unmatched.nearest(node);
+				float length = (float) tsp.distance(node, other);
+				pairs[numPairs++] = ((long) Float.floatToIntBits(length) << 32) | i;
+				proposal[node] = other;
+			}
+			Arrays.sort(pairs, 0, numPairs);
+			for (int p = 0; p < numPairs; p++) {
+				int node = odd[(int) pairs[p]], other = proposal[node];
+				if (!unmatched.contains(node) || !unmatched.contains(other))
+					continue;
+				unmatched.remove(node);
+				unmatched.remove(other);
+				edgeA[numEdges] = node;
+				edgeB[numEdges++] = other;
+			}
+		}
+
+		// Euler path from the agent (Hierholzer) and shortcuts
+		int[] path = eulerPath(edgeA, edgeB, numEdges);
+		int[] tour = new int[size];
+		boolean[] visited = new boolean[numNodes];
+		int length = 0;
+		for (int node : path)
+			if (node < size && !visited[node]) {
+				visited[node] = true;
+				tour[length++] = node;
+			}
+		return tour;
+	}
+
+	/* Euler path of a multigraph from the agent (the agent and the exit are its only nodes of odd degree) */
+	private int[] eulerPath(int[] edgeA, int[] edgeB, int numEdges) {
+		// Adjacency lists (CSR)
+		int[] first = new int[numNodes + 1];
+		for (int e = 0; e < numEdges; e++) {
+			first[edgeA[e] + 1]++;
+			first[edgeB[e] + 1]++;
+		}
+		for (int node = 0; node < numNodes; node++)
+			first[node + 1] += first[node];
+		int[] adjacent = new int[2 * numEdges], fill = Arrays.copyOf(first, numNodes);
+		for (int e = 0; e < numEdges; e++) {
+			adjacent[fill[edgeA[e]]++] = e;
+			adjacent[fill[edgeB[e]]++] = e;
+		}
+
+		boolean[] used = new boolean[numEdges];
+		int[] next = Arrays.copyOf(first, numNodes); // Next adjacent edge to try at each node
+		int[] stack = new int[numEdges + 1], path = new int[numEdges + 1];
+		int top = 0, length = 0;
+		stack[top++] = start;
+		while (top > 0) {
+			int node = stack[top - 1];
+			while (next[node] < first[node + 1] && used[adjacent[next[node]]])
+				next[node]++;
+			if (next[node] == first[node + 1])
+				path[length++] = stack[--top];
+			else {
+				int e = adjacent[next[node]++];
+				used[e] = true;
+				stack[top++] = edgeA[e] == node ? edgeB[e] : edgeA[e];
+			}
+		}
+		// The path is built backwards (from the exit)
+		int[] forward = new int[length];
+		for (int i = 0; i < length; i++)
+			forward[i] = path[length - 1 - i];
+		return forward;
+	}
+
+	// Utilities
+
+	private static int[] identity(int n) {
+		int[] values = new int[n];
+		for (int i = 0; i < n; i++)
+			values[i] = i;
+		return values;
+	}
+
+	/** Disjoint sets of nodes that also know whether they contain the agent or the exit. */
+	private class UnionFind {
+		private final int[] parent;
+		private final boolean[] hasStart, hasEnd;
+
+		UnionFind(int n) {
+			parent = identity(n);
+			hasStart = new boolean[n];
+			hasEnd = new boolean[n];
+			hasStart[start] = true;
+			hasEnd[end] = true;
+		}
+
+		int find(int node) {
+			while (parent[node] != node) {
+				parent[node] = parent[parent[node]];
+				node = parent[node];
+			}
+			return node;
+		}
+
+		/* True if joining the sets of a and b leaves a path: they are different and the agent and the exit stay apart */
+		boolean canJoin(int a, int b) {
+			int ra = find(a), rb = find(b);
+			return ra != rb && !(hasStart[ra] && hasEnd[rb]) && !(hasEnd[ra] && hasStart[rb]);
+		}
+
+		void join(int a, int b) {
+			int ra = find(a), rb = find(b);
+			parent[ra] = rb;
+			hasStart[rb] |= hasStart[ra];
+			hasEnd[rb] |= hasEnd[ra];
+		}
+	}
+
+	/**
+	 * Set of nodes that can be searched for the nearest member to a node. With
+	 * coordinates, members are kept in the cells of a uniform grid, which is rebuilt
+	 * with fewer cells when most members have been removed; otherwise, searches are
+	 * linear.
+	 */
+	private class NodeSet {
+		private final boolean[] member = new boolean[numNodes];
+		private int count;
+
+		/* Grid */
+		private int side; // Cells of each side
+		private double minX, minY, cellSize;
+		private int[] cellStart, cellCount, cellNodes;
+		private final int[] slot = new int[numNodes]; // Position of each member in cellNodes
+
+		NodeSet(int[] nodes, int n) {
+			for (int i = 0; i < n; i++)
+				member[nodes[i]] = true;
+			count = n;
+			build(Arrays.copyOf(nodes, n));
+		}
+
+		int size() {
+			return count;
+		}
+
+		boolean contains(int node) {
+			return member[node];
+		}
+
+		void remove(int node) {
+			member[node] = false;
+			count--;
+			int cell = cellOf(node);
+			int last = cellStart[cell] + --cellCount[cell];
+			int moved = cellNodes[last];
+			cellNodes[slot[node]] = moved;
+			slot[moved] = slot[node];
+			cellNodes[last] = node;
+			if (count > 0 && count < cellCount.length / 8)
+				build(members());
+		}
+
+		/* Nearest member to a node (other than itself), or -1 if there is none */
+		int nearest(int node) {
+			int best = -1;
+			double bestDistance = Double.POSITIVE_INFINITY;
+			if (x == null) {
+				for (int i = 0; i < cellCount[0]; i++) {
+					int other = cellNodes[i];
+					double d = tsp.distance(node, other);
+					if (other != node && d < bestDistance) {
+						best = other;
+						bestDistance = d;
+					}
+				}
+				return best;
+			}
+			int cx = clamp((int) ((x[node] - minX) / cellSize)), cy = clamp((int) ((y[node] - minY) / cellSize));
+			for (int r = 0; r < side; r++) {
+				// Cells at distance r (in cells) from the cell of the node
+				for (int i = Math.max(0, cx - r); i <= Math.min(side - 1, cx + r); i++)
+					for (int j = Math.max(0, cy - r); j <= Math.min(side - 1, cy + r); j++) {
+						if (Math.abs(i - cx) != r && Math.abs(j - cy) != r)
+							continue;
+						int cell = i * side + j;
+						for (int p = cellStart[cell]; p < cellStart[cell] + cellCount[cell]; p++) {
+							int other = cellNodes[p];
+							double dx = x[other] - x[node], dy = y[other] - y[node];
+							double d = dx * dx + dy * dy;
+							if (other != node && d < bestDistance) {
+								best = other;
+								bestDistance = d;
+							}
+						}
+					}
+				// Members in farther cells are at least r cells away
+				if (best >= 0 && Math.sqrt(bestDistance) <= r * cellSize)
+					break;
+			}
+			return best;
+		}
+
+		private int[] members() {
+			int[] nodes = new int[count];
+			int n = 0;
+			for (int cell = 0; cell < cellCount.length; cell++)
+				for (int p = cellStart[cell]; p < cellStart[cell] + cellCount[cell]; p++)
+					nodes[n++] = cellNodes[p];
+			return nodes;
+		}
+
+		/* Distributes the members in a grid of about two members per cell (a single cell without coordinates) */
+		private void build(int[] nodes) {
+			int n = nodes.length;
+			if (x == null)
+				side = 1;
+			else {
+				side = Math.max(1, (int) Math.sqrt(n / 2.0));
+				minX = minY = Double.POSITIVE_INFINITY;
+				double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+				for (int node : nodes) {
+					minX = Math.min(minX, x[node]);
+					maxX = Math.max(maxX, x[node]);
+					minY = Math.min(minY, y[node]);
+					maxY = Math.max(maxY, y[node]);
+				}
+				cellSize = Math.max(Math.max(maxX - minX, maxY - minY) / side, 1e-9) * (1 + 1e-9);
+			}
+			int numCells = side * side;
+			cellStart = new int[numCells + 1];
+			cellCount = new int[numCells];
+			for (int node : nodes)
+				cellCount[cellOf(node)]++;
+			for (int cell = 0; cell < numCells; cell++)
+				cellStart[cell + 1] = cellStart[cell] + cellCount[cell];
+			cellNodes = new int[n];
+			int[] fill = Arrays.copyOf(cellStart, numCells);
+			for (int node : nodes) {
+				int p = fill[cellOf(node)]++;
+				cellNodes[p] = node;
+				slot[node] = p;
+			}
+		}
+
+		private int cellOf(int node) {
+			if (side == 1)
+				return 0;
+			return clamp((int) ((x[node] - minX) / cellSize)) * side + clamp((int) ((y[node] - minY) / cellSize));
+		}
+
+		private int clamp(int cell) {
+			return Math.max(0, Math.min(side - 1, cell));
+		}
+	}
+}
@@ -1,8 +1,7 @@
 package problems.tsp.maze;
 
-import optimization.Configuration;
+import problems.tsp.EdgeWeightType;
 import problems.tsp.TSP;
-import utils.Position;
 import visualization.*;
 
 /**
@@ -27,38 +26,22 @@ public class MazeTSP extends TSP implements ProblemVisualizable {
 	/** Returns a view of the problem. */
 	@Override
 	public ProblemView getView() {
+		if (nodeX == null) {
+			System.out.println("The instance has no coordinates, so it can't be displayed.");
+			return null;
+		}
 		MazeTSPView mazeView = new MazeTSPView(this, 600);
 		return mazeView;
 	}
 
-	/**
-	 * Calculates the score of a configuration as the sum of the path.
+	/** 
+	 * Calculates the (manhattan) distance between two nodes. Instances loaded from
+	 * TSPLIB files also use it, unless their weights are explicit.
 	 */
 	@Override
-	
-	public double score(Configuration configuration) {
-		int[] solution = configuration.getValues();
-	    int distance = 0;
-	    for (int index = 0; index < solution.length; index++) {
-	        int starting = solution[index];
-	        int destination = 0;
-			int pos_x = posCities.get(starting).x;
-			int pos_y = posCities.get(starting).y;
-			int pos_x2 = posCities.get(destination).x;
-			int pos_y2 = posCities.get(destination).y;
-	        if (index + 1 < solution.length) {
-	            destination = solution[index + 1];
-	        } else {
-	            destination = solution[0];
-	            distance += Math.abs(this.posAgent.x - pos_x2) + Math.abs(this.posAgent.y - pos_y2);
-	        }
-	            distance += Math.abs(pos_x - pos_x2) + Math.abs(pos_y - pos_y2);
-	    }
-	    return distance;
-	}
-
-	/** Calculates the distance between two points. */
-	private double dist(Position from, Position to) {
-		return Math.abs(from.x - to.x) + Math.abs(from.y - to.y);
+	protected double computeDistance(int from, int to) {
+		if (weightType == EdgeWeightType.EXPLICIT)
+			return super.computeDistance(from, to);
+		return Math.abs(nodeX[from] - nodeX[to]) + Math.abs(nodeY[from] - nodeY[to]);
 	}
 }
@@ -0,0 +1,21 @@
+package reporting;
+
+/** Prints the progress of the search in the standard output. */
+public class ConsoleSink implements ProgressSink {
+	
+	@Override
+	public void report(SearchMetrics.Snapshot snapshot, double rate){
+		StringBuilder line = new StringBuilder();
+		line.append("\t").append(snapshot.elapsed/1000.0).append(" s. Evaluation ").append(snapshot.evaluations);
+		if (snapshot.generation>0)
+			line.append(". Generation ").append(snapshot.generation);
+		line.append(". Best score: ").append(snapshot.bestScore);
+		line.append(" (").append((long) rate).append(" evaluations/s)");
+		System.out.println(line);
+	}
+	
+	@Override
+	public void close(){
+		System.out.flush();
+	}
+}
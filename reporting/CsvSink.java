@@ -0,0 +1,42 @@
+package reporting;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/** Writes the progress of the search in a CSV file (one row per sample). */
+public class CsvSink implements ProgressSink {
+	
+	private final BufferedWriter writer;
+	
+	/** Creates the file (overwriting it) and writes the header. */
+	public CsvSink(String fileName) throws IOException {
+		writer = new BufferedWriter(new FileWriter(fileName));
+		writer.write("elapsed_ms,evaluations,delta_evaluations,evaluations_per_second,best_score,generation,improvements");
+		writer.newLine();
+		writer.flush();
+	}
+	
+	@Override
+	public void report(SearchMetrics.Snapshot snapshot, double rate){
+		try{
+			writer.write(snapshot.elapsed+","+snapshot.evaluations+","+snapshot.deltaEvaluations+","+rate+","
+					+snapshot.bestScore+","+snapshot.generation+","+snapshot.improvements);
+			writer.newLine();
+			writer.flush();
+		}
+		catch (IOException e){
+			System.out.println("Progress can't be written: "+e.getMessage());
+		}
+	}
+	
+	@Override
+	public void close(){
+		try{
+			writer.close();
+		}
+		catch (IOException e){
+			System.out.println("Progress file can't be closed: "+e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package reporting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/** 
+ * Samples the metrics of a search at a fixed interval in a background (daemon) thread 
+ * and sends the samples to its sinks. The search itself never does any I/O.
+ */
+public class ProgressReporter {
+	
+	private final long interval;							// Milliseconds between samples
+	private final List<ProgressSink> sinks = new ArrayList<ProgressSink>();
+	private ScheduledExecutorService executor;
+	private ScheduledFuture<?> task;
+	private SearchMetrics metrics;
+	private SearchMetrics.Snapshot previous;
+	private final Object reportLock = new Object();		// Samples are sent one at a time
+	
+	/** Creates a reporter that takes a sample every interval milliseconds. */
+	public ProgressReporter(long interval){
+		this.interval = Math.max(1, interval);
+	}
+	
+	/** Adds a sink. */
+	public ProgressReporter addSink(ProgressSink sink){
+		sinks.add(sink);
+		return this;
+	}
+	
+	/** Starts sampling the metrics given. */
+	public synchronized void start(SearchMetrics metrics){
+		stop();
+		this.metrics = metrics;
+		previous = null;
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "progress-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		task = executor.scheduleAtFixedRate(this::report, interval, interval, TimeUnit.MILLISECONDS);
+	}
+	
+	/** Stops sampling, after taking a last sample. */
+	public synchronized void stop(){
+		if (executor==null)
+			return;
+		task.cancel(false);
+		executor.shutdown();
+		try{
+			executor.awaitTermination(interval, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		executor = null;
+		report();
+	}
+	
+	/** Stops sampling and closes the sinks. */
+	public void close(){
+		stop();
+		for (ProgressSink sink: sinks)
+			sink.close();
+	}
+	
+	/* Takes a sample and sends it to the sinks */
+	private void report(){
+		synchronized (reportLock){
+			SearchMetrics.Snapshot snapshot = metrics.sample();
+			double rate = snapshot.evaluationRate(previous);
+			previous = snapshot;
+			for (ProgressSink sink: sinks)
+				sink.report(snapshot, rate);
+		}
+	}
+}
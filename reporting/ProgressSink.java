@@ -0,0 +1,11 @@
+package reporting;
+
+/** Destination of the progress samples taken by a ProgressReporter. */
+public interface ProgressSink {
+	
+	/** Receives a sample. rate is the number of evaluations per second since the previous one. */
+	void report(SearchMetrics.Snapshot snapshot, double rate);
+	
+	/** Called once, after the last sample. */
+	void close();
+}
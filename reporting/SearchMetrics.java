@@ -0,0 +1,84 @@
+package reporting;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/** 
+ * Counters and gauges of a search. Algorithms update them with plain writes (no I/O, 
+ * no string building), and a ProgressReporter samples them from another thread.
+ */
+public class SearchMetrics {
+	
+	/* Counters owned by the algorithm (read when sampling). */
+	private final LongSupplier evaluations;
+	private final LongSupplier deltaEvaluations;
+	
+	/* Number of times the best score has been improved. */
+	private final LongAdder improvements = new LongAdder();
+	
+	/* Gauges. */
+	private volatile double bestScore = Double.POSITIVE_INFINITY;
+	private volatile long generation;
+	private volatile long startTime = System.currentTimeMillis();
+	
+	/** Creates the metrics of a search given its evaluation counters. */
+	public SearchMetrics(LongSupplier evaluations, LongSupplier deltaEvaluations){
+		this.evaluations = evaluations;
+		this.deltaEvaluations = deltaEvaluations;
+	}
+	
+	/** Resets the gauges at the beginning of a search. */
+	public void reset(){
+		improvements.reset();
+		bestScore = Double.POSITIVE_INFINITY;
+		generation = 0;
+		startTime = System.currentTimeMillis();
+	}
+	
+	/** Records an improvement of the best score. */
+	public void improvement(double score){
+		improvements.increment();
+		bestScore = score;
+	}
+	
+	/** Sets the current generation (or iteration) of the algorithm. */
+	public void setGeneration(long generation){
+		this.generation = generation;
+	}
+	
+	/** Takes a snapshot of the metrics. */
+	public Snapshot sample(){
+		return new Snapshot(System.currentTimeMillis()-startTime, evaluations.getAsLong(), 
+				deltaEvaluations.getAsLong(), bestScore, generation, improvements.sum());
+	}
+	
+	/** Values of the metrics at a given moment. */
+	public static class Snapshot {
+		public final long elapsed;				// Milliseconds since the beginning of the search
+		public final long evaluations;
+		public final long deltaEvaluations;
+		public final double bestScore;
+		public final long generation;
+		public final long improvements;
+		
+		Snapshot(long elapsed, long evaluations, long deltaEvaluations, double bestScore, long generation, long improvements){
+			this.elapsed = elapsed;
+			this.evaluations = evaluations;
+			this.deltaEvaluations = deltaEvaluations;
+			this.bestScore = bestScore;
+			this.generation = generation;
+			this.improvements = improvements;
+		}
+		
+		/** Evaluations per second since a previous snapshot (or since the beginning if it is null). */
+		public double evaluationRate(Snapshot previous){
+			long evaluations = this.evaluations+deltaEvaluations;
+			long time = elapsed;
+			if (previous!=null){
+				evaluations -= previous.evaluations+previous.deltaEvaluations;
+				time -= previous.elapsed;
+			}
+			return time>0 ? evaluations*1000.0/time : 0;
+		}
+	}
+}
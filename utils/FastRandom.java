@@ -0,0 +1,55 @@
+package utils;
+
+import java.util.Random;
+
+/**
+ * Random generator (SplitMix64) whose whole state is a single long that can be read and
+ * restored, so that a search can be checkpointed and resumed with exactly the same
+ * sequence of random numbers. It is also faster than java.util.Random, and can be used
+ * wherever a Random is expected. Not thread-safe: each thread must use its own instance.
+ */
+public class FastRandom extends Random {
+	
+	private static final long serialVersionUID = 1L;
+	
+	/* State of the generator */
+	private long state;
+	
+	/** Creates a generator with a seed that differs in each call. */
+	public FastRandom(){
+		this(System.nanoTime()^Thread.currentThread().getId()*0x9E3779B97F4A7C15L);
+	}
+	
+	/** Creates a generator given its seed. */
+	public FastRandom(long seed){
+		super(seed);
+	}
+	
+	@Override
+	public void setSeed(long seed){
+		state = seed;
+	}
+	
+	/** Returns the state of the generator. */
+	public long getState(){
+		return state;
+	}
+	
+	/** Restores a state returned by getState(). */
+	public void setState(long state){
+		this.state = state;
+	}
+	
+	@Override
+	public long nextLong(){
+		long z = (state += 0x9E3779B97F4A7C15L);
+		z = (z^(z>>>30))*0xBF58476D1CE4E5B9L;
+		z = (z^(z>>>27))*0x94D049BB133111EBL;
+		return z^(z>>>31);
+	}
+	
+	@Override
+	protected int next(int bits){
+		return (int) (nextLong()>>>(64-bits));
+	}
+}
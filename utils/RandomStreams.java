@@ -0,0 +1,90 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Source of all the random numbers of a run. Given a seed, it hands out independent
+ * streams (FastRandom generators): stream n starts at a scrambled function of the seed
+ * and n, so a run is reproduced by using the same seed and creating the streams in the
+ * same order. Each thread also has a current stream, used by code that has no generator
+ * of its own (e.g. OptimizationProblem.genRandomConfiguration()).
+ *
+ * Streams are not shared, so no thread contends for a generator. Threads created by an
+ * algorithm get their current stream the first time they use it, in an order that may
+ * change between runs; to keep parallel runs deterministic, create one stream per thread
+ * with newStream() before starting the threads and bind() it in each thread.
+ */
+public class RandomStreams {
+
+	/* Seed of the run and number of streams handed out */
+	private static class Run {
+		final long seed;
+		final AtomicLong streams = new AtomicLong();
+
+		Run(long seed){
+			this.seed = seed;
+		}
+	}
+	private static volatile Run global = new Run(System.nanoTime());
+
+	/* Runs with their own seed in some threads (see setLocalSeed()); inherited by the threads they create */
+	private static final InheritableThreadLocal<Run> local = new InheritableThreadLocal<>();
+
+	/* Current stream of each thread */
+	private static final ThreadLocal<FastRandom> current = ThreadLocal.withInitial(RandomStreams::newStream);
+
+	/** Sets the seed of the run (before creating any stream). */
+	public static void setSeed(long seed){
+		global = new Run(seed);
+		current.remove();
+	}
+
+	/**
+	 * Sets the seed of a run carried out by the calling thread (and the threads it creates
+	 * from now on), independent of the global one. Used to run several searches at once,
+	 * each one repeatable with its own seed.
+	 */
+	public static void setLocalSeed(long seed){
+		local.set(new Run(seed));
+		current.remove();
+	}
+
+	/** Goes back to the global seed in the calling thread. */
+	public static void clearLocalSeed(){
+		local.remove();
+		current.remove();
+	}
+
+	/** Returns the seed of the run. */
+	public static long getSeed(){
+		return run().seed;
+	}
+
+	/** Returns a new independent stream. */
+	public static FastRandom newStream(){
+		Run run = run();
+		return new FastRandom(mix(run.seed+run.streams.getAndIncrement()*0x9E3779B97F4A7C15L));
+	}
+
+	/** Returns the current stream of the calling thread. */
+	public static FastRandom current(){
+		return current.get();
+	}
+
+	/** Makes a stream the current one of the calling thread. */
+	public static void bind(FastRandom random){
+		current.set(random);
+	}
+
+	private static Run run(){
+		Run run = local.get();
+		return run!=null ? run : global;
+	}
+
+	/* Scrambles a value (finalizer of MurmurHash3), so that close seeds give unrelated streams */
+	private static long mix(long z){
+		z = (z^(z>>>33))*0xFF51AFD7ED558CCDL;
+		z = (z^(z>>>33))*0xC4CEB9FE1A85EC53L;
+		return z^(z>>>33);
+	}
+}
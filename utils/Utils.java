@@ -1,10 +0,0 @@
-package utils;
-
-import java.util.Random;
-
-/** Contains some utility objects and functions. */
-public class Utils{
-	
-	/* Random generator */
-	public static Random random = new Random();
-}